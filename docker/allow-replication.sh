@@ -0,0 +1,3 @@
+#!/bin/sh
+# lets the postgres-replica service of docker-compose.yml stream the WAL of this database
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
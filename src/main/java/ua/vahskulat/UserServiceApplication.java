@@ -3,9 +3,11 @@ package ua.vahskulat;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 
 @SpringBootApplication
-@EnableCaching
+// cache advice wraps the transaction, so puts and evictions only happen after commit
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
 public class UserServiceApplication {
 
     public static void main(String[] args) {
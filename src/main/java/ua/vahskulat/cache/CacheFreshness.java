@@ -0,0 +1,44 @@
+package ua.vahskulat.cache;
+
+import org.springframework.lang.Nullable;
+
+import java.util.function.Predicate;
+
+/**
+ * Tells whether a value read in the current transaction may be cached. A read from a replica that has not
+ * replayed a write yet would put back the value the write has just invalidated, and it would be served until it
+ * expires. The caches report what they drop with {@link #written}, the code filling them asks {@link #mayFill}
+ * inside the transaction that read the value.
+ */
+public interface CacheFreshness {
+
+    /**
+     * Every read may be cached, as it is with a single database.
+     */
+    CacheFreshness ALWAYS = new CacheFreshness() {
+        @Override
+        public void written(String cacheName, @Nullable Object key) {
+        }
+
+        @Override
+        public boolean mayFill(String cacheName, Predicate<Object> written) {
+            return true;
+        }
+    };
+
+    /**
+     * Called before {@code key} of {@code cacheName}, or the whole cache for {@code null}, is dropped because
+     * the value has changed.
+     */
+    void written(String cacheName, @Nullable Object key);
+
+    /**
+     * Whether values read in the current transaction may be cached in {@code cacheName}, given the keys
+     * {@code written} since that invalidate them.
+     */
+    boolean mayFill(String cacheName, Predicate<Object> written);
+
+    default boolean mayFill(String cacheName, Object key) {
+        return mayFill(cacheName, key::equals);
+    }
+}
@@ -0,0 +1,9 @@
+package ua.vahskulat.cache;
+
+public interface CacheInvalidationListener {
+
+    /**
+     * Called for every invalidation published by another node.
+     */
+    void onInvalidation(CacheInvalidationMessage message);
+}
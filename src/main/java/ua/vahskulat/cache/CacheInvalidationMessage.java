@@ -0,0 +1,10 @@
+package ua.vahskulat.cache;
+
+import java.io.Serializable;
+
+/**
+ * Broadcast to every node after a write so that they drop their local copy.
+ * A {@code null} key means the whole cache has to be cleared.
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, Object key) implements Serializable {
+}
@@ -0,0 +1,11 @@
+package ua.vahskulat.cache;
+
+import org.springframework.lang.Nullable;
+
+public interface CacheInvalidationPublisher {
+
+    /**
+     * Tells the other nodes that {@code key} of {@code cacheName} has changed, a {@code null} key clears the cache.
+     */
+    void publish(String cacheName, @Nullable Object key);
+}
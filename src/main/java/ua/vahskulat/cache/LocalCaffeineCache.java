@@ -0,0 +1,74 @@
+package ua.vahskulat.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine cache that runs the loader of {@link #get(Object, Callable)} outside of the cache. Spring's
+ * {@link CaffeineCache} loads inside {@code Cache.get(key, mappingFunction)}, that is inside a
+ * {@code ConcurrentHashMap.compute} holding the monitor of the hash bin, so a loader that queries the database
+ * pins a virtual thread to its carrier for the whole query and blocks every other key of the bin meanwhile.
+ * <p>
+ * Concurrent misses of a key are left to the loader to coalesce, the service does so with {@link SingleFlight}.
+ * A value written while the loader runs is kept and returned instead of the loaded one.
+ * <p>
+ * Entries dropped because they changed, here or on another node, are reported to {@link CacheFreshness} first,
+ * so that a value read before the change can not be filled back in.
+ */
+public class LocalCaffeineCache extends CaffeineCache {
+    private final CacheFreshness freshness;
+
+    public LocalCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues
+            , CacheFreshness freshness) {
+        super(name, cache, allowNullValues);
+        this.freshness = freshness;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (loaded == null) {
+            return null;
+        }
+        ValueWrapper existing = putIfAbsent(key, loaded);
+        return existing != null ? (T) existing.get() : loaded;
+    }
+
+    @Override
+    public void evict(Object key) {
+        freshness.written(getName(), key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        freshness.written(getName(), key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        freshness.written(getName(), null);
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        freshness.written(getName(), null);
+        return super.invalidate();
+    }
+}
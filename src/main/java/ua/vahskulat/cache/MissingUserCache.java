@@ -0,0 +1,90 @@
+package ua.vahskulat.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ids that had no user a moment ago, so that lookups of unknown ids repeated by scrapers and broken clients
+ * are answered without a query. Entries live for the short TTL of "missing-user-cache", which is local only:
+ * a 404 does not cost a round trip to the shared cache. A created user is dropped once its transaction has
+ * committed, on this node right away and on the other nodes through the invalidation topic.
+ * A lookup that read the database just before a create committed can still record the id afterwards, the TTL
+ * bounds how long it answers 404 for the new user.
+ */
+@Component
+public class MissingUserCache implements CacheInvalidationListener {
+    public static final String MISSING_USER_CACHE = "missing-user-cache";
+
+    private final Cache cache;
+    private final CacheInvalidationPublisher publisher;
+    private final CacheFreshness freshness;
+
+    public MissingUserCache(CacheManager cacheManager, CacheInvalidationPublisher publisher
+            , CacheFreshness freshness) {
+        this.cache = cacheManager.getCache(MISSING_USER_CACHE);
+        this.publisher = publisher;
+        this.freshness = freshness;
+    }
+
+    public boolean contains(Long id) {
+        return cache.get(id) != null;
+    }
+
+    /**
+     * Records an id the current transaction found no user for, unless a user may have been created since
+     * (see {@link CacheFreshness}).
+     */
+    public void put(Long id) {
+        if (freshness.mayFill(MISSING_USER_CACHE, id)) {
+            cache.putIfAbsent(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Drops the id of a user created in the current transaction once it has committed.
+     */
+    public void evict(Long id) {
+        afterCommit(() -> {
+            cache.evict(id);
+            publisher.publish(MISSING_USER_CACHE, id);
+        });
+    }
+
+    /**
+     * Drops all ids once the current transaction has committed, used after bulk writes.
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            cache.clear();
+            publisher.publish(MISSING_USER_CACHE, null);
+        });
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (!MISSING_USER_CACHE.equals(message.cacheName())) {
+            return;
+        }
+        if (message.key() == null) {
+            cache.clear();
+        } else {
+            cache.evict(message.key());
+        }
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
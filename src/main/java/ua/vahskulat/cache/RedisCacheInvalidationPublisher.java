@@ -0,0 +1,16 @@
+package ua.vahskulat.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@RequiredArgsConstructor
+public class RedisCacheInvalidationPublisher implements CacheInvalidationPublisher {
+    private final RedisTemplate<Object, Object> redisTemplate;
+    private final String topic;
+    private final String origin;
+
+    @Override
+    public void publish(String cacheName, Object key) {
+        redisTemplate.convertAndSend(topic, new CacheInvalidationMessage(origin, cacheName, key));
+    }
+}
@@ -0,0 +1,113 @@
+package ua.vahskulat.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Caffeine cache that serves an entry older than {@code refreshAfterWrite} as it is and reloads it in the
+ * background, so that a read only waits for the database on a real miss. The expiry of the underlying cache
+ * stays as the backstop for entries nobody reads, or that cannot be reloaded.
+ * <p>
+ * In the last tenth of {@code refreshAfterWrite} a read starts the reload with a probability that grows with
+ * the age of the entry, so that entries written together are not all reloaded at once. A reload only replaces
+ * the value it was started for, a value written meanwhile is kept. Only one reload per key runs at a time.
+ * A miss is loaded outside of the cache like in every {@link LocalCaffeineCache}, and a hit of
+ * {@link #get(Object, java.util.concurrent.Callable)} can start a refresh as well.
+ */
+@Slf4j
+public class RefreshAheadCache extends LocalCaffeineCache {
+    private static final int EARLY_REFRESH_SHARE = 10;
+
+    private final long refreshAfterWriteNanos;
+    private final long earlyRefreshNanos;
+    private final Function<Object, Object> loader;
+    private final Executor executor;
+    private final DoubleSupplier random;
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param loader returns the current value of a key, or {@code null} when there is none any more or it may
+     *               not be cached, which drops the entry
+     */
+    public RefreshAheadCache(String name, Cache<Object, Object> cache, Duration refreshAfterWrite
+            , Function<Object, Object> loader, Executor executor, CacheFreshness freshness) {
+        this(name, cache, refreshAfterWrite, loader, executor, freshness
+                , () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    RefreshAheadCache(String name, Cache<Object, Object> cache, Duration refreshAfterWrite
+            , Function<Object, Object> loader, Executor executor, CacheFreshness freshness, DoubleSupplier random) {
+        super(name, cache, false, freshness);
+        if (cache.policy().expireAfterWrite().isEmpty()) {
+            throw new IllegalArgumentException("Cache " + name + " refreshes ahead of an expiry it does not have");
+        }
+        this.refreshAfterWriteNanos = refreshAfterWrite.toNanos();
+        this.earlyRefreshNanos = refreshAfterWriteNanos / EARLY_REFRESH_SHARE;
+        this.loader = loader;
+        this.executor = executor;
+        this.random = random;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (value != null && isRefreshDue(key)) {
+            refresh(key, value);
+        }
+        return value;
+    }
+
+    private boolean isRefreshDue(Object key) {
+        long age = getNativeCache().policy().expireAfterWrite()
+                .flatMap(expiration -> expiration.ageOf(key))
+                .map(Duration::toNanos)
+                .orElse(0L);
+        long early = age - (refreshAfterWriteNanos - earlyRefreshNanos);
+        return early >= earlyRefreshNanos || early > 0 && random.getAsDouble() * earlyRefreshNanos < early;
+    }
+
+    private void refresh(Object key, Object value) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    reload(key, value);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug(" Refresh of {} in {} rejected, serving the cached value ", key, getName());
+        }
+    }
+
+    private void reload(Object key, Object value) {
+        Object current;
+        try {
+            current = loader.apply(key);
+        } catch (RuntimeException e) {
+            log.warn(" Refresh of {} in {} failed, serving the cached value until it expires ", key, getName(), e);
+            return;
+        }
+
+        if (current == null) {
+            getNativeCache().asMap().remove(key, value);
+        } else {
+            getNativeCache().asMap().replace(key, value, current);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ua.vahskulat.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time: a caller asking for a key that is already being loaded waits for
+ * that load and gets its result, or its exception, instead of loading it again. Nothing is kept once the load
+ * is over, caching the result is up to the caller.
+ * <p>
+ * Counts the loads run and the calls that joined one as {@code user.cache.loads} with
+ * {@code result=loaded|coalesced}.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter loaded;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.loaded = meterRegistry.counter("user.cache.loads", "cache", name, "result", "loaded");
+        this.coalesced = meterRegistry.counter("user.cache.loads", "cache", name, "result", "coalesced");
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+
+        loaded.increment();
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error exception) {
+            load.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+}
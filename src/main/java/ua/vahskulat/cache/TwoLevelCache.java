@@ -0,0 +1,131 @@
+package ua.vahskulat.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+
+/**
+ * In-process near cache in front of a shared remote cache. Reads are served from the local
+ * cache first, writes go to both levels and are broadcast so that other nodes drop their
+ * local entry and re-read it from the shared cache.
+ */
+public class TwoLevelCache implements Cache {
+    private final Cache localCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher publisher;
+
+    public TwoLevelCache(Cache localCache, Cache remoteCache, CacheInvalidationPublisher publisher) {
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String getName() {
+        return localCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache.getNativeCache();
+    }
+
+    public Cache getLocalCache() {
+        return localCache;
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = localCache.get(key);
+        if (value == null) {
+            value = remoteCache.get(key);
+            if (value != null && value.get() != null) {
+                localCache.put(key, value.get());
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        ValueWrapper value = get(key);
+        Object result = value != null ? value.get() : null;
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (loaded == null) {
+            return null;
+        }
+        ValueWrapper existing = putIfAbsent(key, loaded);
+        return existing != null ? (T) existing.get() : loaded;
+    }
+
+    /**
+     * A write of the value, the other nodes are told to drop their entry. Values read from the database are
+     * filled with {@link #putIfAbsent} or {@link #get(Object, Callable)}, which do not broadcast.
+     */
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        remoteCache.put(key, value);
+        localCache.put(key, value);
+        publisher.publish(getName(), key);
+    }
+
+    /**
+     * Fills the cache with a value just read from the database. Nothing has changed,
+     * so unlike {@link #put} the other nodes are not told to drop their entry.
+     */
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        localCache.put(key, existing != null ? existing.get() : value);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        localCache.evict(key);
+        publisher.publish(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.clear();
+        publisher.publish(getName(), null);
+    }
+
+    /**
+     * Applies an invalidation broadcast by another node to the local level only.
+     */
+    void invalidateLocal(@Nullable Object key) {
+        if (key == null) {
+            localCache.clear();
+        } else {
+            localCache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ua.vahskulat.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.Collection;
+import java.util.Set;
+
+@Slf4j
+public class TwoLevelCacheManager extends AbstractCacheManager implements CacheInvalidationListener {
+    private final CacheManager localCacheManager;
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher publisher;
+    private final Set<String> localOnlyCacheNames;
+
+    public TwoLevelCacheManager(CacheManager localCacheManager, CacheManager remoteCacheManager
+            , CacheInvalidationPublisher publisher, Set<String> localOnlyCacheNames) {
+        this.localCacheManager = localCacheManager;
+        this.remoteCacheManager = remoteCacheManager;
+        this.publisher = publisher;
+        this.localOnlyCacheNames = localOnlyCacheNames;
+    }
+
+    /**
+     * Local-only caches are returned as they are, their owners take care of invalidating them on other nodes.
+     */
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return localCacheManager.getCacheNames().stream()
+                .map(name -> localOnlyCacheNames.contains(name)
+                        ? localCacheManager.getCache(name)
+                        : new TwoLevelCache(localCacheManager.getCache(name), remoteCacheManager.getCache(name), publisher))
+                .toList();
+    }
+
+    /**
+     * Drops local entries named in an invalidation message sent by another node.
+     */
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (lookupCache(message.cacheName()) instanceof TwoLevelCache cache) {
+            log.debug(" Invalidating local entry {} of cache {} ", message.key(), message.cacheName());
+            cache.invalidateLocal(message.key());
+        }
+    }
+}
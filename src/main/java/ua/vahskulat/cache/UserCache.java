@@ -0,0 +1,76 @@
+package ua.vahskulat.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Users of "user-cache", read by id, many at a time for batch gets by id and for the users of cached birth date
+ * range pages. The writes of the service keep the cache in sync through its cache annotations.
+ */
+@Component
+public class UserCache {
+    public static final String USER_CACHE = "user-cache";
+
+    private final Cache cache;
+    private final UserRepository userRepository;
+    private final CacheFreshness freshness;
+
+    public UserCache(CacheManager cacheManager, UserRepository userRepository, CacheFreshness freshness) {
+        this.cache = cacheManager.getCache(USER_CACHE);
+        this.userRepository = userRepository;
+        this.freshness = freshness;
+    }
+
+    @Nullable
+    public User get(Long id) {
+        return cache.get(id, User.class);
+    }
+
+    /**
+     * Multi-get by id: hits come from "user-cache", the misses are loaded with one {@code id in (...)} query
+     * and put into the cache, so it is called in the transaction of the query. Ids without a user are absent
+     * from the result.
+     */
+    public Map<Long, User> getUsers(Collection<Long> ids) {
+        Map<Long, User> users = new HashMap<>();
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            User user = get(id);
+            if (user != null) {
+                users.put(id, user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            userRepository.findDetachedByIdIn(List.copyOf(missingIds)).forEach(user -> {
+                users.put(user.getId(), user);
+                fill(user);
+            });
+        }
+        return users;
+    }
+
+    /**
+     * Caches a user just read from the database in the current transaction, unless it may have missed a write
+     * (see {@link CacheFreshness}). A user already cached is kept, and unlike a write nothing is broadcast to the
+     * other nodes, as nothing has changed.
+     */
+    public void fill(User user) {
+        if (freshness.mayFill(USER_CACHE, user.getId())) {
+            cache.putIfAbsent(user.getId(), user);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ua.vahskulat.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ua.vahskulat.repository.UserRepository;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the emails in use. {@link #mightContain} returning {@code false} means the email is
+ * certainly free as far as this node knows, so the write can go straight to the database and leave the rest
+ * to the unique constraint. Emails are never removed, a deleted user's email only costs an extra check.
+ * Until the filter is loaded at startup every email is reported as possibly taken.
+ */
+@Slf4j
+@Component
+public class UserEmailFilter {
+    private final UserRepository userRepository;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean loaded;
+
+    public UserEmailFilter(UserRepository userRepository
+            , @Value("${user.email-filter.expected-emails}") long expectedEmails
+            , @Value("${user.email-filter.false-positive-rate}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        long bitCount = (long) Math.ceil(-expectedEmails * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (bitCount + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / expectedEmails * Math.log(2)));
+        this.bits = new AtomicLongArray(Math.toIntExact(this.bitCount / 64));
+    }
+
+    public boolean mightContain(String email) {
+        if (!loaded) {
+            return true;
+        }
+        long hash = hash(email);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(first + (long) i * second, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String email) {
+        long hash = hash(email);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(first + (long) i * second, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            while (((word = bits.get(index)) & mask) == 0 && !bits.compareAndSet(index, word, word | mask)) {
+                // retry, another email set a bit in the same word
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Streams every email once, the filter answers "possibly taken" for everything until this completes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long count = 0;
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            for (String email : (Iterable<String>) emails::iterator) {
+                put(email);
+                count++;
+            }
+        }
+        loaded = true;
+        log.info(" Email filter loaded with {} emails, {} bits, {} hashes ", count, bitCount, hashCount);
+    }
+
+    /**
+     * 64-bit FNV-1a with the murmur3 finalizer, the two halves drive the double hashing of the bit positions.
+     */
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash ^= email.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
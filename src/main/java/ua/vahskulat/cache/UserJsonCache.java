@@ -0,0 +1,69 @@
+package ua.vahskulat.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ua.vahskulat.config.UserCacheProperties;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.User;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The {@code UserResponseDto} of a user encoded as UTF-8 JSON, so that a read answered from "user-cache" is
+ * neither mapped nor serialized again. An entry is only used for the version of the user it was encoded from:
+ * the user comes from "user-cache" first, so an entry that missed a write, on this node or on another, is
+ * encoded again instead of being served, and a user without a version is not kept at all. The writes to
+ * "user-cache" also drop the entry here.
+ * Off with {@code user.cache.json-responses=false}.
+ */
+@Component
+public class UserJsonCache {
+    public static final String USER_JSON_CACHE = "user-json-cache";
+
+    private final Cache cache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final UserMapper userMapper = UserMapper.mapper;
+
+    public UserJsonCache(CacheManager cacheManager, ObjectMapper objectMapper, UserCacheProperties properties) {
+        this.cache = cacheManager.getCache(USER_JSON_CACHE);
+        this.objectMapper = objectMapper;
+        this.enabled = properties.jsonResponses();
+    }
+
+    /**
+     * The encoded user, or {@code null} when the cache is off.
+     */
+    @Nullable
+    public byte[] get(User user) {
+        if (!enabled) {
+            return null;
+        }
+        if (user.getVersion() == null) {
+            return encode(user);
+        }
+
+        EncodedUser encoded = cache.get(user.getId(), EncodedUser.class);
+        if (encoded == null || !Objects.equals(encoded.version(), user.getVersion())) {
+            encoded = new EncodedUser(user.getVersion(), encode(user));
+            cache.put(user.getId(), encoded);
+        }
+        return encoded.json();
+    }
+
+    private byte[] encode(User user) {
+        try {
+            return objectMapper.writeValueAsBytes(userMapper.toDTO(user));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("User " + user.getId() + " cannot be encoded", exception);
+        }
+    }
+
+    record EncodedUser(Long version, byte[] json) implements Serializable {
+    }
+}
@@ -0,0 +1,168 @@
+package ua.vahskulat.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ua.vahskulat.model.User;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches birth date range pages as the list of user ids on the page, the users themselves
+ * are resolved from "user-cache". A write only drops the ranges that contain the birth date
+ * of the written user, on this node right after commit and on the other nodes through
+ * the invalidation topic. A page is only cached when no such write may be missing from it
+ * (see {@link CacheFreshness}), so it is put in the transaction that read it.
+ */
+@Slf4j
+@Component
+public class UserRangeCache implements CacheInvalidationListener {
+    public static final String RANGE_CACHE = "user-range-cache";
+
+    private final Cache rangeCache;
+    private final UserCache userCache;
+    private final CacheInvalidationPublisher publisher;
+    private final CacheFreshness freshness;
+
+    public UserRangeCache(CacheManager cacheManager, UserCache userCache, CacheInvalidationPublisher publisher
+            , CacheFreshness freshness) {
+        this.rangeCache = cacheManager.getCache(RANGE_CACHE);
+        this.userCache = userCache;
+        this.publisher = publisher;
+        this.freshness = freshness;
+    }
+
+    /**
+     * Returns the cached page or {@code null} when the range has not been cached yet.
+     */
+    @Nullable
+    public Page<User> get(LocalDate from, LocalDate to, Pageable pageable) {
+        RangeKey key = RangeKey.of(from, to, pageable, true);
+        RangeEntry entry = rangeCache.get(key, RangeEntry.class);
+        List<User> users = resolve(key, entry);
+        return users == null ? null : new PageImpl<>(users, pageable, entry.total());
+    }
+
+    /**
+     * Returns the cached slice, cached apart from pages as it carries no total, or {@code null}.
+     */
+    @Nullable
+    public Slice<User> getSlice(LocalDate from, LocalDate to, Pageable pageable) {
+        RangeKey key = RangeKey.of(from, to, pageable, false);
+        RangeEntry entry = rangeCache.get(key, RangeEntry.class);
+        List<User> users = resolve(key, entry);
+        return users == null ? null : new SliceImpl<>(users, pageable, entry.hasNext());
+    }
+
+    public void put(LocalDate from, LocalDate to, Pageable pageable, Page<User> page) {
+        store(RangeKey.of(from, to, pageable, true), page, page.getTotalElements());
+    }
+
+    public void putSlice(LocalDate from, LocalDate to, Pageable pageable, Slice<User> slice) {
+        store(RangeKey.of(from, to, pageable, false), slice, -1);
+    }
+
+    @Nullable
+    private List<User> resolve(RangeKey key, @Nullable RangeEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+
+        Map<Long, User> users = userCache.getUsers(entry.ids());
+        if (users.size() < entry.ids().size()) {
+            log.debug(" Range {} refers to deleted users, dropping it ", key);
+            rangeCache.evict(key);
+            return null;
+        }
+        return entry.ids().stream().map(users::get).toList();
+    }
+
+    private void store(RangeKey key, Slice<User> slice, long total) {
+        slice.forEach(userCache::fill);
+        if (freshness.mayFill(RANGE_CACHE, written -> written instanceof LocalDate birthDate
+                && key.contains(birthDate))) {
+            rangeCache.put(key, new RangeEntry(slice.map(User::getId).getContent(), total, slice.hasNext()));
+        }
+    }
+
+    /**
+     * Drops every cached range containing {@code birthDate}, or all of them for {@code null},
+     * once the current transaction has committed.
+     */
+    public void evictContaining(@Nullable LocalDate birthDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(birthDate);
+                }
+            });
+        } else {
+            evictAndPublish(birthDate);
+        }
+    }
+
+    /**
+     * Drops all cached ranges once the current transaction has committed, used after bulk writes.
+     */
+    public void evictAll() {
+        evictContaining(null);
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (RANGE_CACHE.equals(message.cacheName())) {
+            evictLocal((LocalDate) message.key());
+        }
+    }
+
+    private void evictAndPublish(@Nullable LocalDate birthDate) {
+        evictLocal(birthDate);
+        publisher.publish(RANGE_CACHE, birthDate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evictLocal(@Nullable LocalDate birthDate) {
+        if (birthDate == null) {
+            rangeCache.clear();
+            return;
+        }
+        freshness.written(RANGE_CACHE, birthDate);
+        ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) rangeCache.getNativeCache())
+                .asMap()
+                .keySet()
+                .removeIf(key -> key instanceof RangeKey rangeKey && rangeKey.contains(birthDate));
+    }
+
+    /**
+     * A page ({@code counted}) or a slice of users with a birth date from {@code from} to {@code to}.
+     */
+    public record RangeKey(LocalDate from, LocalDate to, int page, int size, Sort sort, boolean counted)
+            implements Serializable {
+
+        public static RangeKey of(LocalDate from, LocalDate to, Pageable pageable, boolean counted) {
+            return new RangeKey(from, to, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort()
+                    , counted);
+        }
+
+        boolean contains(LocalDate birthDate) {
+            return !birthDate.isBefore(from) && !birthDate.isAfter(to);
+        }
+    }
+
+    record RangeEntry(List<Long> ids, long total, boolean hasNext) implements Serializable {
+    }
+}
@@ -0,0 +1,231 @@
+package ua.vahskulat.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.transaction.support.TransactionOperations;
+import ua.vahskulat.cache.CacheFreshness;
+import ua.vahskulat.cache.CacheInvalidationListener;
+import ua.vahskulat.cache.CacheInvalidationMessage;
+import ua.vahskulat.cache.CacheInvalidationPublisher;
+import ua.vahskulat.cache.LocalCaffeineCache;
+import ua.vahskulat.cache.RedisCacheInvalidationPublisher;
+import ua.vahskulat.cache.RefreshAheadCache;
+import ua.vahskulat.cache.SingleFlight;
+import ua.vahskulat.cache.TwoLevelCache;
+import ua.vahskulat.cache.TwoLevelCacheManager;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.cache.UserRangeCache;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Configuration
+@EnableConfigurationProperties(UserCacheProperties.class)
+public class CacheConfig implements CachingConfigurer {
+
+    /**
+     * A failing cache (e.g. the shared Redis being down) is logged and treated as a miss
+     * instead of failing the request.
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    /**
+     * Concurrent misses of one user are loaded from the database once.
+     */
+    @Bean
+    public SingleFlight<Long, User> userLoads(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(UserCache.USER_CACHE, meterRegistry);
+    }
+
+    /**
+     * Concurrent misses of one birth date range page are loaded from the database once.
+     */
+    @Bean
+    public SingleFlight<UserRangeCache.RangeKey, Slice<User>> rangeLoads(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(UserRangeCache.RANGE_CACHE, meterRegistry);
+    }
+
+    /**
+     * With a single database every read may be cached, a replica brings its own (see {@code DataSourceConfig}).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "user.datasource.replica.enabled", havingValue = "false", matchIfMissing = true)
+    public CacheFreshness cacheFreshness() {
+        return CacheFreshness.ALWAYS;
+    }
+
+    /**
+     * Reloads "user-cache" entries past their {@code refresh-after-write}, in a read-only transaction of its own.
+     * A user that is gone, or read from a replica that may have missed a write to it, is dropped from the cache.
+     */
+    @Bean
+    public CacheRefresh cacheRefresh(UserRepository userRepository, TransactionOperations cacheLoadTransaction
+            , CacheFreshness cacheFreshness
+            , @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        return new CacheRefresh(Map.of(UserCache.USER_CACHE, key -> cacheLoadTransaction.execute(status ->
+                userRepository.findById((Long) key)
+                        .filter(user -> cacheFreshness.mayFill(UserCache.USER_CACHE, key))
+                        .orElse(null))), executor);
+    }
+
+    record CacheRefresh(Map<String, Function<Object, Object>> loaders, Executor executor) {
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "user.cache.remote.enabled", havingValue = "false", matchIfMissing = true)
+    static class LocalCacheConfig {
+
+        @Bean
+        public CacheManager cacheManager(UserCacheProperties properties, CacheRefresh cacheRefresh
+                , CacheFreshness cacheFreshness) {
+            return localCacheManager(properties, cacheRefresh, cacheFreshness);
+        }
+
+        @Bean
+        public CacheInvalidationPublisher cacheInvalidationPublisher() {
+            return (cacheName, key) -> {
+            };
+        }
+    }
+
+    /**
+     * Only the caches declared under {@code user.cache.caches} exist, each bounded by size and TTL,
+     * so an unknown cache name fails fast instead of silently creating an unbounded cache. Every cache is a
+     * {@link LocalCaffeineCache}, which loads misses outside of Caffeine's locks and reports the entries it drops
+     * to {@code freshness}, and one with {@code refresh-after-write} a {@link RefreshAheadCache}.
+     */
+    static CaffeineCacheManager localCacheManager(UserCacheProperties properties, CacheRefresh cacheRefresh
+            , CacheFreshness freshness) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                Duration refreshAfterWrite = properties.caches().get(name).refreshAfterWrite();
+                if (refreshAfterWrite == null) {
+                    return new LocalCaffeineCache(name, cache, isAllowNullValues(), freshness);
+                }
+                Function<Object, Object> loader = cacheRefresh.loaders().get(name);
+                if (loader == null) {
+                    throw new IllegalStateException("Cache " + name + " has refresh-after-write but no loader");
+                }
+                return new RefreshAheadCache(name, cache, refreshAfterWrite, loader, cacheRefresh.executor()
+                        , freshness);
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheNames(Collections.emptyList());
+
+        properties.caches().forEach((name, spec) -> {
+            if (spec.refreshAfterWrite() != null && spec.refreshAfterWrite().compareTo(spec.expireAfterWrite()) >= 0) {
+                throw new IllegalStateException("Cache " + name + " has to refresh before it expires");
+            }
+            cacheManager.registerCustomCache(name, Caffeine.newBuilder()
+                    .maximumSize(spec.maximumSize())
+                    .expireAfterWrite(spec.expireAfterWrite())
+                    .recordStats()
+                    .build());
+        });
+
+        return cacheManager;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "user.cache.remote.enabled", havingValue = "true")
+    static class RemoteCacheConfig {
+        private final String origin = UUID.randomUUID().toString();
+
+        @Bean
+        public CacheInvalidationPublisher cacheInvalidationPublisher(UserCacheProperties properties
+                , RedisTemplate<Object, Object> redisTemplate) {
+            return new RedisCacheInvalidationPublisher(redisTemplate, properties.remote().invalidationTopic(), origin);
+        }
+
+        @Bean
+        public TwoLevelCacheManager cacheManager(UserCacheProperties properties
+                , RedisConnectionFactory connectionFactory
+                , CacheInvalidationPublisher cacheInvalidationPublisher
+                , CacheRefresh cacheRefresh
+                , CacheFreshness cacheFreshness) {
+            Map<String, RedisCacheConfiguration> remoteCaches = new HashMap<>();
+            properties.caches().forEach((name, spec) -> remoteCaches.put(name, RedisCacheConfiguration
+                    .defaultCacheConfig()
+                    .entryTtl(spec.expireAfterWrite())
+                    .disableCachingNullValues()));
+
+            RedisCacheManager remoteCacheManager = RedisCacheManager.builder(connectionFactory)
+                    .withInitialCacheConfigurations(remoteCaches)
+                    .disableCreateOnMissingCache()
+                    .build();
+            remoteCacheManager.afterPropertiesSet();
+
+            Set<String> localOnlyCacheNames = properties.caches().entrySet().stream()
+                    .filter(entry -> entry.getValue().localOnly())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+
+            return new TwoLevelCacheManager(localCacheManager(properties, cacheRefresh, cacheFreshness)
+                    , remoteCacheManager, cacheInvalidationPublisher, localOnlyCacheNames);
+        }
+
+        /**
+         * Cache metrics of a two level cache are the statistics of its local Caffeine cache, Redis hits show up
+         * there as misses.
+         */
+        @Bean
+        public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+            return (cache, tags) -> new CaffeineCacheMetrics<>(
+                    ((CaffeineCache) cache.getLocalCache()).getNativeCache(), cache.getName(), tags);
+        }
+
+        @Bean
+        public RedisMessageListenerContainer cacheInvalidationListenerContainer(UserCacheProperties properties
+                , RedisConnectionFactory connectionFactory
+                , List<CacheInvalidationListener> listeners) {
+            JdkSerializationRedisSerializer serializer = new JdkSerializationRedisSerializer();
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.addMessageListener((message, pattern) -> {
+                CacheInvalidationMessage invalidation = (CacheInvalidationMessage) serializer.deserialize(message.getBody());
+                if (invalidation != null && !origin.equals(invalidation.origin())) {
+                    listeners.forEach(listener -> listener.onInvalidation(invalidation));
+                }
+            }, new ChannelTopic(properties.remote().invalidationTopic()));
+            return container;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ua.vahskulat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import ua.vahskulat.datasource.ReadYourWritesFilter;
+import ua.vahskulat.datasource.ReplicaCacheFreshness;
+import ua.vahskulat.datasource.ReplicaLagMonitor;
+import ua.vahskulat.datasource.ReplicaRoutingDataSource;
+import ua.vahskulat.datasource.ReplicaTransactionListener;
+
+import javax.sql.DataSource;
+
+/**
+ * With {@code user.datasource.replica.enabled} the application {@link DataSource} routes read-only transactions to
+ * the replica, otherwise Spring Boot's single pool on {@code spring.datasource} is used.
+ */
+@Configuration
+@EnableConfigurationProperties(UserReplicaProperties.class)
+@ConditionalOnProperty(name = "user.datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("user.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(UserReplicaProperties properties) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.url())
+                .username(properties.username())
+                .password(properties.password())
+                .build();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource, UserReplicaProperties properties
+            , MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaDataSource, properties.maxLag(), properties.lagCheckInterval()
+                , meterRegistry);
+    }
+
+    /**
+     * Lets the caches be filled from the replica, see {@code CacheConfig} for a single database.
+     */
+    @Bean
+    public ReplicaCacheFreshness cacheFreshness(ReplicaLagMonitor replicaLagMonitor) {
+        return new ReplicaCacheFreshness(replicaLagMonitor);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource
+            , ReplicaLagMonitor replicaLagMonitor) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor);
+    }
+
+    /**
+     * Registered with the transaction manager by Spring Boot, as every {@code TransactionExecutionListener}.
+     */
+    @Bean
+    public ReplicaTransactionListener replicaTransactionListener() {
+        return new ReplicaTransactionListener();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(UserReplicaProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.maxLag()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+}
@@ -0,0 +1,21 @@
+package ua.vahskulat.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ua.vahskulat.datasource.HikariPoolSizing;
+
+@Configuration
+public class JdbcPoolConfig {
+
+    /**
+     * Static, as a post processor it is created before the other beans of this configuration.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "user.datasource.pool.size-from-cores", havingValue = "true")
+    public static HikariPoolSizing hikariPoolSizing(@Value("${user.datasource.pool.database-cores}") int databaseCores
+            , @Value("${user.datasource.pool.effective-spindles}") int effectiveSpindles) {
+        return new HikariPoolSizing(databaseCores, effectiveSpindles);
+    }
+}
@@ -0,0 +1,29 @@
+package ua.vahskulat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+public class ReactiveConfig {
+
+    /**
+     * Runs the blocking JDBC calls of the reactive endpoints. It has as many threads as the pool has connections,
+     * more threads would only wait for a connection, and everything beyond that waits as a queued task instead of
+     * a blocked thread.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler userJdbcScheduler(DataSource dataSource
+            , @Value("${user.reactive.queued-tasks}") int queuedTasks) throws SQLException {
+        int threads = dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(threads, queuedTasks, "user-jdbc");
+    }
+}
@@ -0,0 +1,32 @@
+package ua.vahskulat.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class TransactionConfig {
+
+    /**
+     * For writes that are split into transactions of their own, such as the chunks of a bulk import.
+     */
+    @Bean
+    public TransactionOperations writeTransaction(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * For the reads that fill a cache, which have to start their transaction after some work of their own, such
+     * as waiting for a load of the same key by another caller, which {@code @Transactional} would do holding a
+     * connection. Read-only, so on the replica when there is one: the value is put into the cache inside the
+     * transaction, where {@code CacheFreshness} can tell whether the replica may have missed a write to it.
+     */
+    @Bean
+    public TransactionOperations cacheLoadTransaction(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+}
@@ -0,0 +1,25 @@
+package ua.vahskulat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "user.cache")
+public record UserCacheProperties(Map<String, CacheSpec> caches, @DefaultValue Remote remote
+        , boolean jsonResponses) {
+
+    /**
+     * {@code refreshAfterWrite}, when set, is the soft TTL: older entries are still served and reloaded in the
+     * background, {@code expireAfterWrite} is the hard one. Only caches with a loader in {@link CacheConfig}
+     * can have it.
+     */
+    public record CacheSpec(long maximumSize, Duration expireAfterWrite, boolean localOnly
+            , @Nullable Duration refreshAfterWrite) {
+    }
+
+    public record Remote(boolean enabled, @DefaultValue("user-cache-invalidation") String invalidationTopic) {
+    }
+}
@@ -0,0 +1,14 @@
+package ua.vahskulat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * The read replica, its pool is configured under {@code user.datasource.replica.hikari}.
+ */
+@ConfigurationProperties(prefix = "user.datasource.replica")
+public record UserReplicaProperties(boolean enabled, String url, String username, String password
+        , @DefaultValue("5s") Duration maxLag, @DefaultValue("1s") Duration lagCheckInterval) {
+}
@@ -1,28 +1,58 @@
 package ua.vahskulat.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import ua.vahskulat.cache.UserJsonCache;
+import ua.vahskulat.dto.request.UserBatchGetRequestDto;
 import ua.vahskulat.dto.request.UserCreateRequestDTO;
 import ua.vahskulat.dto.request.UserUpdateRequestDto;
+import ua.vahskulat.dto.response.ErrorTitle;
+import ua.vahskulat.dto.response.UserBatchGetResultDto;
+import ua.vahskulat.dto.response.UserImportResultDto;
 import ua.vahskulat.dto.response.UserResponseAPI;
 import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.export.UserExportFormat;
+import ua.vahskulat.export.UserExportWriter;
 import ua.vahskulat.mapper.UserMapper;
 import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.CountMode;
+import ua.vahskulat.pagination.UserCursor;
 import ua.vahskulat.service.UserService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping(value = "/api/v1/users")
@@ -31,48 +61,168 @@ import java.util.List;
 @Slf4j
 public class UserController {
     private final UserService userService;
+    private final UserJsonCache userJsonCache;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    /**
+     * The MVC one, looked up per request as there is none when the application runs without a web server.
+     */
+    private final ObjectProvider<ContentNegotiationManager> contentNegotiationManager;
     private final UserMapper userMapper = UserMapper.mapper;
 
+    @Value("${user.bulk.chunk-size}")
+    private int bulkChunkSize;
+
+    /**
+     * A client that sends the ETag it already has in If-None-Match gets 304 without a body, answered from
+     * "user-cache" without mapping or serializing the user. Otherwise a JSON response is written from the JSON
+     * encoded once per version by {@link UserJsonCache}, and the user is mapped and serialized when that cache is
+     * off or Smile or CBOR is negotiated, which never touch the JSON cache. The ETag is the version with the
+     * encoding, responses vary by Accept.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponseAPI<UserResponseDto>> userById(@Positive @PathVariable Long id
+    public ResponseEntity<?> userById(@Positive @PathVariable Long id
+            , @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
             , HttpServletRequest request) {
-        log.info("Received request to get user with ID: {}", id);
+        log.debug("Received request to get user with ID: {}", id);
+        User user = userService.getUserById(id);
+        UserETag.Encoding encoding = encoding(request);
+        String eTag = UserETag.of(user, encoding);
+        if (UserETag.matchesNoneMatch(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        byte[] json = encoding == UserETag.Encoding.JSON ? userJsonCache.get(user) : null;
+        if (json != null) {
+            return ResponseEntity.ok().eTag(eTag).body(UserJsonResponse.of(json, user, request.getRequestURI()));
+        }
 
         return ResponseEntity
                 .ok()
+                .eTag(eTag)
                 .body(UserResponseAPI.<UserResponseDto>builder()
-                        .data(userMapper.toDTO(userService.getUserById(id)))
+                        .data(userMapper.toDTO(user))
                         .path(request.getRequestURI())
                         .build());
 
     }
 
+    /**
+     * Looks up to 1000 users in one call, the results follow the order of the requested ids.
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<UserResponseAPI<List<UserBatchGetResultDto>>> usersByIds(
+            @Valid @RequestBody UserBatchGetRequestDto userBatchGetRequestDto
+            , HttpServletRequest request) {
+        List<Long> ids = userBatchGetRequestDto.ids();
+        log.debug("Received request to get {} users by ID", ids.size());
+        List<User> users = userService.getUsersByIds(ids);
+
+        List<UserBatchGetResultDto> results = new ArrayList<>(ids.size());
+        long found = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            User user = users.get(i);
+            if (user != null) {
+                results.add(UserBatchGetResultDto.found(ids.get(i), userMapper.toDTO(user)));
+                found++;
+            } else {
+                results.add(UserBatchGetResultDto.notFound(ids.get(i)));
+            }
+        }
+
+        return ResponseEntity
+                .ok(UserResponseAPI.<List<UserBatchGetResultDto>>builder()
+                        .data(results)
+                        .countElements(found)
+                        .totalElements(results.size())
+                        .path(request.getRequestURI())
+                        .build());
+    }
+
     @PostMapping
     public ResponseEntity<UserResponseAPI<UserResponseDto>> createUser(
             @Valid @RequestBody UserCreateRequestDTO userCreateRequestDTO
             , HttpServletRequest request) {
-        log.info(" Received request to create user: {} ", userCreateRequestDTO);
+        log.debug(" Received request to create user ");
         User user = userService.createUser(userMapper.toUser(userCreateRequestDTO));
-        log.info(" User created successfully ");
+        log.debug(" User created successfully ");
 
         return ResponseEntity.
                 created(URI.create(request.getRequestURI() + "/" + user.getId()))
+                .eTag(eTag(user, request))
                 .body(UserResponseAPI.<UserResponseDto>builder()
                         .data(userMapper.toDTO(user))
                         .build());
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponseAPI<List<UserImportResultDto>>> createUsers(
+            @RequestBody List<UserCreateRequestDTO> userCreateRequestDTOs
+            , HttpServletRequest request) {
+        log.info(" Received request to import {} users ", userCreateRequestDTOs.size());
+        List<UserImportResultDto> results = new ArrayList<>(userCreateRequestDTOs.size());
+        for (int from = 0; from < userCreateRequestDTOs.size(); from += bulkChunkSize) {
+            List<UserCreateRequestDTO> chunk = userCreateRequestDTOs
+                    .subList(from, Math.min(from + bulkChunkSize, userCreateRequestDTOs.size()));
+            results.addAll(importChunk(chunk, from));
+        }
+
+        return ResponseEntity
+                .ok(UserResponseAPI.<List<UserImportResultDto>>builder()
+                        .data(results)
+                        .countElements(results.stream().filter(result -> result.id() != null).count())
+                        .totalElements(results.size())
+                        .path(request.getRequestURI())
+                        .build());
+    }
+
+    /**
+     * Same as {@link #createUsers} for one JSON user per line. Users are read, created and answered
+     * chunk by chunk, so memory stays flat whatever the number of lines, and a malformed line only fails itself.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void createUsersStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info(" Received request to import users stream ");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        BufferedReader reader = request.getReader();
+        OutputStream out = response.getOutputStream();
+
+        List<UserCreateRequestDTO> chunk = new ArrayList<>(bulkChunkSize);
+        long index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(readUser(line));
+            if (chunk.size() == bulkChunkSize) {
+                writeResults(importChunk(chunk, index), out);
+                index += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeResults(importChunk(chunk, index), out);
+        }
+    }
+
+    /**
+     * With If-Match the names are only updated while the user is still at one of its versions, otherwise 412.
+     */
     @PatchMapping("/{id}")
     public ResponseEntity<UserResponseAPI<UserResponseDto>> updateUserNames
             (@PathVariable @Positive Long id, @Valid @RequestBody UserUpdateRequestDto updateUser
+                    , @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
                     , HttpServletRequest request) {
-        log.info(" Received request to update user first name: {} and last name : {} with ID: {}"
+        log.debug(" Received request to update user first name: {} and last name : {} with ID: {}"
                 , updateUser.firstName(), updateUser.lastName(), id);
-        User user = userService.updateUserNames(id, updateUser.firstName(), updateUser.lastName());
-        log.info(" User first name and last name updated successfully ");
+        User user = userService.updateUserNames(id, updateUser.firstName(), updateUser.lastName()
+                , UserETag.expectedVersions(ifMatch));
+        log.debug(" User first name and last name updated successfully ");
 
         return ResponseEntity
                 .ok()
+                .eTag(eTag(user, request))
                 .body(UserResponseAPI.<UserResponseDto>builder()
                         .data(userMapper.toDTO(user))
                         .path(request.getRequestURI())
@@ -80,15 +230,21 @@ public class UserController {
 
     }
 
+    /**
+     * With If-Match the user is only replaced while it is still at one of its versions, otherwise 412.
+     */
     @PutMapping("/{id}")
     public ResponseEntity<UserResponseAPI<UserResponseDto>> updateAllFieldsUser(@PathVariable @Positive Long id
             , @Valid @RequestBody UserCreateRequestDTO userCreateRequestDTO
+            , @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
             , HttpServletRequest request) {
-        log.info(" Received request to update user with id: {}", id);
-        User user = userService.updateUser(id, userMapper.toUser(userCreateRequestDTO));
-        log.info(" User updated successfully ");
+        log.debug(" Received request to update user with id: {}", id);
+        User user = userService.updateUser(id, userMapper.toUser(userCreateRequestDTO)
+                , UserETag.expectedVersions(ifMatch));
+        log.debug(" User updated successfully ");
 
         return ResponseEntity.ok()
+                .eTag(eTag(user, request))
                 .body(UserResponseAPI.<UserResponseDto>builder()
                         .data(userMapper.toDTO(user))
                         .path(request.getRequestURI())
@@ -98,9 +254,9 @@ public class UserController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable @Positive Long id) {
-        log.info(" Received request to delete user with id: {}", id);
+        log.debug(" Received request to delete user with id: {}", id);
         userService.deleteUser(id);
-        log.info(" User deleted successfully ");
+        log.debug(" User deleted successfully ");
 
         return ResponseEntity
                 .noContent()
@@ -116,17 +272,138 @@ public class UserController {
             LocalDate toDate
             , @RequestParam(name = "page", defaultValue = "0", required = false) int page
             , @RequestParam(name = "size", defaultValue = "10", required = false) int size
+            , @RequestParam(name = "count", defaultValue = "EXACT", required = false) CountMode count
             , HttpServletRequest request) {
-        log.info(" Received request to find all user by date range from: {} - to: {} ", fromDate, toDate);
+        log.debug(" Received request to find all user by date range from: {} - to: {} ", fromDate, toDate);
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> userPage = userService.getUsersByBirthDateRange(fromDate, toDate, pageable);
+
+        if (count == CountMode.EXACT) {
+            Page<User> userPage = userService.getUsersByBirthDateRange(fromDate, toDate, pageable);
+
+            return ResponseEntity
+                    .ok(UserResponseAPI.<List<UserResponseDto>>builder()
+                            .data(userMapper.toListDTO(userPage.getContent()))
+                            .countElements(userPage.getNumberOfElements())
+                            .totalElements(userPage.getTotalElements())
+                            .path(request.getRequestURI())
+                            .build());
+        }
+
+        Slice<User> userSlice = userService.getUserSliceByBirthDateRange(fromDate, toDate, pageable);
+
+        return ResponseEntity
+                .ok(UserResponseAPI.<List<UserResponseDto>>builder()
+                        .data(userMapper.toListDTO(userSlice.getContent()))
+                        .countElements(userSlice.getNumberOfElements())
+                        .hasNext(userSlice.hasNext())
+                        .estimatedTotalElements(count == CountMode.ESTIMATED
+                                ? userService.estimateUsersByBirthDateRange(fromDate, toDate)
+                                : 0)
+                        .path(request.getRequestURI())
+                        .build());
+    }
+
+    /**
+     * Streams the whole range as NDJSON or CSV in (birth date, id) order, in constant memory.
+     */
+    @GetMapping("/export")
+    public void exportUsersByDateRange(
+            @NotNull(message = " From date can`t be null or empty. This date is required ")
+            LocalDate fromDate
+            , @NotNull(message = "To date can`t be null or empty. This date is required ")
+            LocalDate toDate
+            , @RequestParam(name = "format", defaultValue = "NDJSON", required = false) UserExportFormat format
+            , HttpServletResponse response) throws IOException {
+        log.debug(" Received request to export users by date range from: {} - to: {} as {} ", fromDate, toDate, format);
+        try (UserExportWriter writer = UserExportWriter.of(format, response, objectMapper)) {
+            userService.exportUsersByBirthDateRange(fromDate, toDate, writer::writeUnchecked);
+            writer.finish();
+        }
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<UserResponseAPI<List<UserResponseDto>>> scrollUsersByDateRange(
+            @NotNull(message = " From date can`t be null or empty. This date is required ")
+            LocalDate fromDate
+            , @NotNull(message = "To date can`t be null or empty. This date is required ")
+            LocalDate toDate
+            , @RequestParam(name = "cursor", required = false) String cursor
+            , @RequestParam(name = "size", defaultValue = "100", required = false) @Positive @Max(1000) int size
+            , HttpServletRequest request) {
+        log.debug(" Received request to scroll users by date range from: {} - to: {} ", fromDate, toDate);
+        Slice<User> userSlice = userService.getUsersByBirthDateRangeAfter(fromDate, toDate
+                , cursor == null ? null : UserCursor.decode(cursor), size);
 
         return ResponseEntity
                 .ok(UserResponseAPI.<List<UserResponseDto>>builder()
-                        .data(userMapper.toListDTO(userPage.getContent()))
-                        .countElements(userPage.getNumberOfElements())
-                        .totalElements(userPage.getTotalElements())
+                        .data(userMapper.toListDTO(userSlice.getContent()))
+                        .countElements(userSlice.getNumberOfElements())
+                        .nextCursor(userSlice.hasNext()
+                                ? UserCursor.of(userSlice.getContent().get(userSlice.getNumberOfElements() - 1)).encode()
+                                : null)
                         .path(request.getRequestURI())
                         .build());
     }
+
+    private List<UserImportResultDto> importChunk(List<UserCreateRequestDTO> chunk, long firstIndex) {
+        UserImportResultDto[] results = new UserImportResultDto[chunk.size()];
+        List<User> users = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            UserCreateRequestDTO userCreateRequestDTO = chunk.get(i);
+            if (userCreateRequestDTO == null) {
+                results[i] = UserImportResultDto.failed(firstIndex + i, null, ErrorTitle.VALIDATION_ERROR
+                        , " Malformed user JSON ");
+                continue;
+            }
+            Set<ConstraintViolation<UserCreateRequestDTO>> violations = validator.validate(userCreateRequestDTO);
+            if (!violations.isEmpty()) {
+                results[i] = UserImportResultDto.failed(firstIndex + i, userCreateRequestDTO.email()
+                        , ErrorTitle.VALIDATION_ERROR, violations.iterator().next().getMessage());
+                continue;
+            }
+            users.add(userMapper.toUser(userCreateRequestDTO));
+            positions.add(i);
+        }
+
+        if (!users.isEmpty()) {
+            List<UserImportResultDto> created = userService.createUsers(users);
+            for (int i = 0; i < created.size(); i++) {
+                results[positions.get(i)] = created.get(i).withIndex(firstIndex + positions.get(i));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private UserCreateRequestDTO readUser(String line) {
+        try {
+            return objectMapper.readValue(line, UserCreateRequestDTO.class);
+        } catch (JsonProcessingException exception) {
+            return null;
+        }
+    }
+
+    private void writeResults(List<UserImportResultDto> results, OutputStream out) throws IOException {
+        for (UserImportResultDto result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private String eTag(User user, HttpServletRequest request) {
+        return UserETag.of(user, encoding(request));
+    }
+
+    private UserETag.Encoding encoding(HttpServletRequest request) {
+        List<MediaType> acceptable;
+        try {
+            acceptable = contentNegotiationManager.getObject().resolveMediaTypes(new ServletWebRequest(request));
+        } catch (HttpMediaTypeNotAcceptableException exception) {
+            // the body cannot be written either, the request fails with 406
+            acceptable = List.of();
+        }
+        return UserETag.Encoding.negotiate(acceptable);
+    }
 }
@@ -0,0 +1,122 @@
+package ua.vahskulat.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import ua.vahskulat.model.User;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The ETag of a user is its version, as every write of the user bumps it, with the encoding of the body:
+ * {@code "<version>"} for JSON, {@code "<version>-smile"} and {@code "<version>-cbor"} for the binary ones, so that
+ * a strong tag names a single representation. If-Match only compares the version, whatever the encoding.
+ */
+final class UserETag {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private UserETag() {
+    }
+
+    /**
+     * The encodings of the user API, in the order Spring MVC prefers them when the client accepts several.
+     */
+    enum Encoding {
+        JSON(MediaType.APPLICATION_JSON, ""),
+        SMILE(new MediaType("application", "x-jackson-smile"), "-smile"),
+        CBOR(MediaType.APPLICATION_CBOR, "-cbor");
+
+        private final MediaType mediaType;
+        private final String suffix;
+
+        Encoding(MediaType mediaType, String suffix) {
+            this.mediaType = mediaType;
+            this.suffix = suffix;
+        }
+
+        /**
+         * The encoding the body is written in for {@code acceptable}, sorted by quality and specificity as the
+         * content negotiation of Spring MVC returns it. JSON when none is acceptable, the request fails with 406.
+         */
+        static Encoding negotiate(List<MediaType> acceptable) {
+            for (MediaType requested : acceptable) {
+                for (Encoding encoding : values()) {
+                    if (requested.isCompatibleWith(encoding.mediaType)) {
+                        return encoding;
+                    }
+                }
+            }
+            return JSON;
+        }
+    }
+
+    @Nullable
+    static String of(User user, Encoding encoding) {
+        return user.getVersion() == null ? null : "\"" + user.getVersion() + encoding.suffix + "\"";
+    }
+
+    /**
+     * Weak comparison of the If-None-Match header with {@code eTag}, any tag of the list may match.
+     */
+    static boolean matchesNoneMatch(@Nullable String ifNoneMatch, @Nullable String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals(ANY) || stripWeak(tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The versions the If-Match header accepts, {@code null} when any version will do (no header or {@code *}).
+     * Any strong tag of the list counts, in any encoding. Weak tags and tags that name no version of a user are
+     * left out as they never match, so the set is empty when none is left.
+     */
+    @Nullable
+    static Set<Long> expectedVersions(@Nullable String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals(ANY)) {
+                return null;
+            }
+            Long version = version(tag);
+            if (version != null) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    @Nullable
+    private static Long version(String tag) {
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        String version = tag.substring(1, tag.length() - 1);
+        for (Encoding encoding : Encoding.values()) {
+            if (!encoding.suffix.isEmpty() && version.endsWith(encoding.suffix)) {
+                version = version.substring(0, version.length() - encoding.suffix.length());
+                break;
+            }
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+}
@@ -0,0 +1,59 @@
+package ua.vahskulat.controller;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import ua.vahskulat.dto.response.UserResponseAPI;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@code UserResponseAPI} with {@code data} and {@code path} only, holding {@code data} already encoded as JSON.
+ * The envelope is written around it piece by piece, byte for byte what Jackson writes for the envelope. Asked for
+ * in another encoding, Smile or CBOR, it is mapped and serialized as a {@code UserResponseAPI}.
+ */
+public final class UserJsonResponse {
+    private static final byte[] DATA = "{\"data\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PATH = ",\"path\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] data;
+    private final byte[] quotedPath;
+    private final User user;
+    private final String path;
+
+    private UserJsonResponse(byte[] data, User user, String path) {
+        this.data = data;
+        this.quotedPath = JsonStringEncoder.getInstance().quoteAsUTF8(path);
+        this.user = user;
+        this.path = path;
+    }
+
+    public static UserJsonResponse of(byte[] data, User user, String path) {
+        return new UserJsonResponse(data, user, path);
+    }
+
+    public long contentLength() {
+        return DATA.length + data.length + PATH.length + quotedPath.length + END.length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(DATA);
+        out.write(data);
+        out.write(PATH);
+        out.write(quotedPath);
+        out.write(END);
+    }
+
+    @JsonValue
+    public UserResponseAPI<UserResponseDto> toResponse() {
+        return UserResponseAPI.<UserResponseDto>builder()
+                .data(UserMapper.mapper.toDTO(user))
+                .path(path)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package ua.vahskulat.controller;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link UserJsonResponse} straight to the response body, without copying it into one array first.
+ * As a bean it is put in front of the converters Spring Boot registers.
+ */
+@Component
+public class UserJsonResponseConverter extends AbstractHttpMessageConverter<UserJsonResponse> {
+
+    public UserJsonResponseConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return UserJsonResponse.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected UserJsonResponse readInternal(Class<? extends UserJsonResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("A user response is not read", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(UserJsonResponse response, MediaType contentType) {
+        return response.contentLength();
+    }
+
+    @Override
+    protected void writeInternal(UserJsonResponse response, HttpOutputMessage outputMessage) throws IOException {
+        response.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,92 @@
+package ua.vahskulat.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.vahskulat.dto.response.UserResponseAPI;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.service.ReactiveUserService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking variant of the read endpoints of {@link UserController} with the same payloads. The request is
+ * put into async mode and the Tomcat thread goes back to the pool while the database is queried, so open
+ * connections waiting for PostgreSQL do not hold a thread each.
+ */
+@RestController
+@RequestMapping(value = "/api/v1/reactive/users")
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+public class UserReactiveController {
+    private final ReactiveUserService reactiveUserService;
+    private final UserMapper userMapper = UserMapper.mapper;
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserResponseAPI<UserResponseDto>>> userById(@Positive @PathVariable Long id
+            , HttpServletRequest request) {
+        log.debug("Received reactive request to get user with ID: {}", id);
+        String path = request.getRequestURI();
+
+        return reactiveUserService.getUserById(id)
+                .map(user -> ResponseEntity
+                        .ok()
+                        .body(UserResponseAPI.<UserResponseDto>builder()
+                                .data(userMapper.toDTO(user))
+                                .path(path)
+                                .build()));
+    }
+
+    @GetMapping()
+    public Mono<ResponseEntity<UserResponseAPI<List<UserResponseDto>>>> findUsersByDateRange(
+            @NotNull(message = " From date can`t be null or empty. This date is required ")
+            LocalDate fromDate
+            , @NotNull(message = "To date can`t be null or empty. This date is required ")
+            LocalDate toDate
+            , @RequestParam(name = "page", defaultValue = "0", required = false) int page
+            , @RequestParam(name = "size", defaultValue = "10", required = false) int size
+            , HttpServletRequest request) {
+        log.debug(" Received reactive request to find all user by date range from: {} - to: {} ", fromDate, toDate);
+        String path = request.getRequestURI();
+
+        return reactiveUserService.getUsersByBirthDateRange(fromDate, toDate, PageRequest.of(page, size))
+                .map(userPage -> ResponseEntity
+                        .ok(UserResponseAPI.<List<UserResponseDto>>builder()
+                                .data(userMapper.toListDTO(userPage.getContent()))
+                                .countElements(userPage.getNumberOfElements())
+                                .totalElements(userPage.getTotalElements())
+                                .path(path)
+                                .build()));
+    }
+
+    /**
+     * The whole range as NDJSON in (birth date, id) order, written as the client reads it.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponseDto> streamUsersByDateRange(
+            @NotNull(message = " From date can`t be null or empty. This date is required ")
+            LocalDate fromDate
+            , @NotNull(message = "To date can`t be null or empty. This date is required ")
+            LocalDate toDate) {
+        log.debug(" Received request to stream users by date range from: {} - to: {} ", fromDate, toDate);
+
+        return reactiveUserService.streamUsersByBirthDateRange(fromDate, toDate)
+                .map(userMapper::toDTO);
+    }
+}
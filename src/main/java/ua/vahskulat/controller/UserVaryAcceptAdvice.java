@@ -0,0 +1,40 @@
+package ua.vahskulat.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bodies of {@link UserController} are JSON, Smile or CBOR depending on the Accept header, so caches have
+ * to keep them apart.
+ */
+@ControllerAdvice(assignableTypes = UserController.class)
+public class UserVaryAcceptAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType
+            , Class<? extends HttpMessageConverter<?>> selectedConverterType
+            , ServerHttpRequest request, ServerHttpResponse response) {
+        HttpHeaders headers = response.getHeaders();
+        List<String> vary = headers.getVary();
+        if (!vary.contains(HttpHeaders.ACCEPT)) {
+            List<String> varyBy = new ArrayList<>(vary);
+            varyBy.add(HttpHeaders.ACCEPT);
+            headers.setVary(varyBy);
+        }
+        return body;
+    }
+}
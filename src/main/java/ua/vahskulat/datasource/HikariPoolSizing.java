@@ -0,0 +1,33 @@
+package ua.vahskulat.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Sizes every Hikari pool as HikariCP advises, {@code database cores * 2 + effective spindles}, and keeps it at
+ * that size: a database runs only so many queries at once, more connections just queue inside it, and an idle
+ * connection costs far less than opening one under load. Overrides {@code maximum-pool-size}.
+ */
+@Slf4j
+public class HikariPoolSizing implements BeanPostProcessor {
+    private final int poolSize;
+
+    /**
+     * @param databaseCores cores of the database server, 0 when it runs on this machine
+     */
+    public HikariPoolSizing(int databaseCores, int effectiveSpindles) {
+        int cores = databaseCores > 0 ? databaseCores : Runtime.getRuntime().availableProcessors();
+        this.poolSize = cores * 2 + effectiveSpindles;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+            log.info(" Pool {} sized to {} connections ", beanName, poolSize);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(poolSize);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,81 @@
+package ua.vahskulat.datasource;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Read-your-writes state of the current request. A request that starts a read-write transaction gets the
+ * {@value #HEADER} response header with the time of the write; a client sending it back within
+ * {@code user.datasource.replica.max-lag} has its reads served by the primary, so it never reads a replica that
+ * has not caught up with its own writes yet.
+ */
+public final class ReadYourWrites {
+    public static final String HEADER = "X-Last-Write";
+
+    private static final ThreadLocal<ReadYourWrites> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletResponse response;
+    private boolean primaryRequired;
+    private boolean written;
+
+    private ReadYourWrites(HttpServletResponse response, boolean primaryRequired) {
+        this.response = response;
+        this.primaryRequired = primaryRequired;
+    }
+
+    static void begin(HttpServletResponse response, boolean primaryRequired) {
+        CURRENT.set(new ReadYourWrites(response, primaryRequired));
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static boolean isPrimaryRequired() {
+        ReadYourWrites current = CURRENT.get();
+        return current != null && current.primaryRequired;
+    }
+
+    /**
+     * Called when a read-write transaction takes a connection, the rest of the request reads from the primary.
+     */
+    static void writeStarted() {
+        ReadYourWrites current = CURRENT.get();
+        if (current == null || current.written) {
+            return;
+        }
+        current.written = true;
+        current.primaryRequired = true;
+        if (current.response != null && !current.response.isCommitted()) {
+            current.response.setHeader(HEADER, String.valueOf(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Carries the state of the calling request over to {@code callable}, for work handed to another thread.
+     */
+    public static <T> Callable<T> propagate(Callable<T> callable) {
+        boolean primaryRequired = isPrimaryRequired();
+        if (!primaryRequired) {
+            return callable;
+        }
+        return () -> {
+            ReadYourWrites previous = CURRENT.get();
+            CURRENT.set(new ReadYourWrites(null, true));
+            try {
+                return callable.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(ReadYourWrites previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
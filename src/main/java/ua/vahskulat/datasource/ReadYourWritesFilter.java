@@ -0,0 +1,44 @@
+package ua.vahskulat.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Binds {@link ReadYourWrites} to the request: a {@value ReadYourWrites#HEADER} younger than the maximum replica
+ * lag sends the reads of the request to the primary.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private final long maxLagMillis;
+
+    public ReadYourWritesFilter(Duration maxLag) {
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ReadYourWrites.begin(response, isRecentWrite(request.getHeader(ReadYourWrites.HEADER)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+
+    private boolean isRecentWrite(String lastWrite) {
+        if (lastWrite == null) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() - Long.parseLong(lastWrite) < maxLagMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
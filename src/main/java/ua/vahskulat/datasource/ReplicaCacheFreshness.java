@@ -0,0 +1,87 @@
+package ua.vahskulat.datasource;
+
+import org.springframework.lang.Nullable;
+import ua.vahskulat.cache.CacheFreshness;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the reads of the replica from filling a cache with a value that a write has already invalidated. Every
+ * dropped entry is remembered with the time it was dropped until the replica has replayed past that time, and a
+ * transaction on the replica may fill an entry unless it was dropped after the point the replica had replayed to
+ * when the transaction began, a write in the very millisecond counts as missed. Transactions on the primary may
+ * always fill.
+ * <p>
+ * A transaction that began before the last pruning can not tell any more, it does not fill at all. A write
+ * committed between the check of {@link #mayFill} and the fill can still be missed, like with the primary, the
+ * expiry of the cache bounds how long.
+ */
+public class ReplicaCacheFreshness implements CacheFreshness {
+    private final ReplicaLagMonitor lagMonitor;
+    private final Map<Written, Long> writes = new ConcurrentHashMap<>();
+    private final Map<String, Long> clears = new ConcurrentHashMap<>();
+    private final AtomicLong prunedThrough = new AtomicLong();
+
+    public ReplicaCacheFreshness(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    public void written(String cacheName, @Nullable Object key) {
+        prune();
+        long now = System.currentTimeMillis();
+        if (key == null) {
+            clears.merge(cacheName, now, Math::max);
+        } else {
+            writes.merge(new Written(cacheName, key), now, Math::max);
+        }
+    }
+
+    @Override
+    public boolean mayFill(String cacheName, Predicate<Object> written) {
+        Long replayedThrough = ReplicaRoutingDataSource.replicaReplayedThrough();
+        if (replayedThrough == null) {
+            return true;
+        }
+        boolean missed = writes.entrySet().stream().anyMatch(write -> write.getValue() >= replayedThrough
+                && write.getKey().cacheName().equals(cacheName) && written.test(write.getKey().key()));
+        return !missed && isKnown(cacheName, replayedThrough);
+    }
+
+    @Override
+    public boolean mayFill(String cacheName, Object key) {
+        Long replayedThrough = ReplicaRoutingDataSource.replicaReplayedThrough();
+        if (replayedThrough == null) {
+            return true;
+        }
+        Long writtenAt = writes.get(new Written(cacheName, key));
+        return (writtenAt == null || writtenAt < replayedThrough) && isKnown(cacheName, replayedThrough);
+    }
+
+    /**
+     * Not cleared since {@code replayedThrough}, and the writes since have not been pruned yet. Checked after
+     * the writes, as pruning moves {@link #prunedThrough} before it removes any.
+     */
+    private boolean isKnown(String cacheName, long replayedThrough) {
+        Long clearedAt = clears.get(cacheName);
+        return (clearedAt == null || clearedAt < replayedThrough) && prunedThrough.get() <= replayedThrough;
+    }
+
+    /**
+     * Forgets the writes the replica has replayed, at most once per lag check.
+     */
+    private void prune() {
+        long replayedThrough = lagMonitor.replayedThroughMillis();
+        long pruned = prunedThrough.get();
+        if (replayedThrough > pruned && prunedThrough.compareAndSet(pruned, replayedThrough)) {
+            writes.values().removeIf(writtenAt -> writtenAt < replayedThrough);
+            clears.values().removeIf(clearedAt -> clearedAt < replayedThrough);
+        }
+    }
+
+    private record Written(String cacheName, Object key) {
+    }
+}
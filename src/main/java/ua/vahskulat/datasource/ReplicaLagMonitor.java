@@ -0,0 +1,98 @@
+package ua.vahskulat.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls how far the replica is behind the primary. While it lags more than {@code user.datasource.replica.max-lag},
+ * can not be reached or does not stream from the primary, read-only transactions go to the primary as well. Until
+ * the first check has passed the replica is not used.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+    // an idle primary sends nothing to replay, so a replica that has replayed all it received is not behind, as long
+    // as it still receives: without a WAL receiver it has replayed all it will ever get and the lag is unknown (null);
+    // the status of the receiver is only shown to pg_read_all_stats, a receiver that is there counts as streaming
+    private static final String LAG_SECONDS = """
+            select case when not pg_is_in_recovery() then 0
+                        when not exists (select from pg_stat_wal_receiver
+                                         where coalesce(status, 'streaming') = 'streaming') then null
+                        when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end
+            """;
+
+    private final JdbcTemplate replica;
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean replicaUsable;
+    private volatile long replayedThroughMillis;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, Duration maxLag, Duration checkInterval
+            , MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+        Gauge.builder("user.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .baseUnit("seconds")
+                .description("Replay lag of the read replica, NaN while it can not be reached or does not stream")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * Time up to which the replica had replayed the writes of the primary at the last check that reached it,
+     * it has replayed at least as far since.
+     */
+    public long replayedThroughMillis() {
+        return replayedThroughMillis;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public void check() {
+        boolean usable;
+        long checkedAt = System.currentTimeMillis();
+        try {
+            Double lag = replica.queryForObject(LAG_SECONDS, Double.class);
+            lagSeconds = lag == null ? Double.NaN : lag;
+            usable = lagSeconds <= maxLagSeconds;
+            if (lag != null) {
+                replayedThroughMillis = Math.max(replayedThroughMillis, checkedAt - (long) (lagSeconds * 1000));
+            }
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+        if (usable && !replicaUsable) {
+            log.info(" Read replica in use, lag {} s ", lagSeconds);
+        } else if (!usable && replicaUsable) {
+            log.warn(" Read replica not used, lag {} s ", lagSeconds);
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,71 @@
+package ua.vahskulat.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. Reads stay on the primary for
+ * a request that has written, or came back with its {@link ReadYourWrites#HEADER}, and while the replica lags.
+ * The route is chosen when a transaction takes its connection, which it does on begin, while
+ * {@link ReplicaTransactionListener} tells whether the transaction is read-only. Connections taken outside a
+ * transaction begin go to the primary. A transaction sent to the replica remembers how far the replica had
+ * replayed, for {@link ReplicaCacheFreshness}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Boolean> BEGINNING_READ_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Long> REPLICA_REPLAYED_THROUGH = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public enum Role {
+        PRIMARY, REPLICA
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Role.PRIMARY, primary, Role.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    static void beginning(boolean readOnly) {
+        BEGINNING_READ_ONLY.set(readOnly);
+    }
+
+    static void begun() {
+        BEGINNING_READ_ONLY.remove();
+    }
+
+    static void ended() {
+        REPLICA_REPLAYED_THROUGH.remove();
+    }
+
+    /**
+     * How far the replica had replayed when the current transaction took a connection to it, {@code null} when
+     * the current transaction does not read the replica.
+     */
+    @Nullable
+    static Long replicaReplayedThrough() {
+        return REPLICA_REPLAYED_THROUGH.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Boolean readOnly = BEGINNING_READ_ONLY.get();
+        if (readOnly == null) {
+            return Role.PRIMARY;
+        }
+        if (!readOnly) {
+            ReadYourWrites.writeStarted();
+            return Role.PRIMARY;
+        }
+        if (ReadYourWrites.isPrimaryRequired() || !lagMonitor.isReplicaUsable()) {
+            return Role.PRIMARY;
+        }
+        REPLICA_REPLAYED_THROUGH.set(lagMonitor.replayedThroughMillis());
+        return Role.REPLICA;
+    }
+}
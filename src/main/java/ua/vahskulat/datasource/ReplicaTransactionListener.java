@@ -0,0 +1,38 @@
+package ua.vahskulat.datasource;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Lets {@link ReplicaRoutingDataSource} know whether the transaction taking a connection is read-only. The
+ * connection is taken while the transaction begins, not lazily at the first statement: Hibernate's pooled id
+ * optimizer fetches the next sequence value while holding a lock, and a lazily acquired connection would then be
+ * waited for under that lock, by threads holding the connections it waits for. The replay position a
+ * transaction on the replica started from is forgotten when it ends.
+ */
+public class ReplicaTransactionListener implements TransactionExecutionListener {
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        ReplicaRoutingDataSource.beginning(transaction.isReadOnly());
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        ReplicaRoutingDataSource.begun();
+        if (beginFailure != null) {
+            ReplicaRoutingDataSource.ended();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        ReplicaRoutingDataSource.ended();
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        ReplicaRoutingDataSource.ended();
+    }
+}
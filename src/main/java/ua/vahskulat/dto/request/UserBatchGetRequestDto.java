@@ -0,0 +1,12 @@
+package ua.vahskulat.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record UserBatchGetRequestDto(@NotEmpty(message = " Ids can`t be empty ")
+                                     @Size(max = 1000, message = " No more than 1000 ids per request ")
+                                     List<@NotNull(message = " Id can`t be null ") Long> ids) {
+}
@@ -11,6 +11,7 @@ public enum ErrorTitle {
     WRONG_DATE(" Wrong date "),
     WRONG_AGE(" Wrong age "),
     USER_EMAIL_EXIST(" User email exist "),
+    USER_MODIFIED(" User modified "),
     INVALID_QUERY_PARAMETER("Invalid query parameter"),
     VALIDATION_ERROR(" Validation error ");
 
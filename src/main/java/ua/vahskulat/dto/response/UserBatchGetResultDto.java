@@ -0,0 +1,15 @@
+package ua.vahskulat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserBatchGetResultDto(Long id, UserResponseDto user, String error) {
+
+    public static UserBatchGetResultDto found(Long id, UserResponseDto user) {
+        return new UserBatchGetResultDto(id, user, null);
+    }
+
+    public static UserBatchGetResultDto notFound(Long id) {
+        return new UserBatchGetResultDto(id, null, ErrorTitle.USER_NOT_FOUND.getError());
+    }
+}
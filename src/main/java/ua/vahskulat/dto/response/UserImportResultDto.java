@@ -0,0 +1,20 @@
+package ua.vahskulat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ua.vahskulat.model.User;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserImportResultDto(long index, Long id, String email, String error, String detail) {
+
+    public static UserImportResultDto created(long index, User user) {
+        return new UserImportResultDto(index, user.getId(), user.getEmail(), null, null);
+    }
+
+    public static UserImportResultDto failed(long index, String email, ErrorTitle error, String detail) {
+        return new UserImportResultDto(index, null, email, error.getError(), detail);
+    }
+
+    public UserImportResultDto withIndex(long index) {
+        return new UserImportResultDto(index, id, email, error, detail);
+    }
+}
@@ -2,11 +2,13 @@ package ua.vahskulat.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
+import lombok.extern.jackson.Jacksonized;
 
 @Getter
 @Setter
 @ToString
 @Builder
+@Jacksonized
 public class UserResponseAPI<T> {
     private T data;
 
@@ -16,7 +18,16 @@ public class UserResponseAPI<T> {
     @JsonInclude(JsonInclude.Include.NON_DEFAULT)
     private long totalElements;
 
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long estimatedTotalElements;
+
     @JsonInclude(JsonInclude.Include.NON_DEFAULT)
     private long countElements;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasNext;
+
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private String nextCursor;
+
 }
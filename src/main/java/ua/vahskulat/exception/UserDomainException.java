@@ -0,0 +1,13 @@
+package ua.vahskulat.exception;
+
+/**
+ * Base of the exceptions that tell the client about an expected outcome, such as an unknown id or a used email.
+ * They are turned into a response by {@code UserControllerAdvice} and never logged with their stack, so the
+ * stack is not filled in, which on a busy 404 path is most of what throwing one costs.
+ */
+public abstract class UserDomainException extends RuntimeException {
+
+    protected UserDomainException() {
+        super(null, null, false, false);
+    }
+}
@@ -4,11 +4,24 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 
 @Setter
 @Getter
 @AllArgsConstructor
 @ToString
-public class UserEmailExistException extends RuntimeException {
+public class UserEmailExistException extends UserDomainException {
+  private static final String EMAIL_CONSTRAINT = "users_email_key";
+
   private final String message;
+
+  /**
+   * Whether {@code exception} violates the unique constraint on {@code users.email}, which has the final word on
+   * a duplicate the email checks before a write did not see, such as one created concurrently.
+   */
+  public static boolean isEmailTaken(DataIntegrityViolationException exception) {
+    return exception.getCause() instanceof ConstraintViolationException violation
+            && EMAIL_CONSTRAINT.equals(violation.getConstraintName());
+  }
 }
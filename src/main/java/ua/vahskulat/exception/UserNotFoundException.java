@@ -6,6 +6,6 @@ import lombok.*;
 @Setter
 @AllArgsConstructor
 @ToString
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends UserDomainException {
     private final String message;
 }
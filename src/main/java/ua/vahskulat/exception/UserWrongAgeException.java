@@ -9,6 +9,6 @@ import lombok.ToString;
 @Setter
 @AllArgsConstructor
 @ToString
-public class UserWrongAgeException extends RuntimeException {
+public class UserWrongAgeException extends UserDomainException {
     private final String message;
 }
@@ -0,0 +1,14 @@
+package ua.vahskulat.exception;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@ToString
+public class UserWrongCursorException extends UserDomainException {
+    private final String message;
+}
@@ -9,6 +9,6 @@ import lombok.ToString;
 @Setter
 @AllArgsConstructor
 @ToString
-public class UserWrongDateException extends RuntimeException {
+public class UserWrongDateException extends UserDomainException {
     private final String message;
 }
@@ -3,16 +3,21 @@ package ua.vahskulat.exception.handler;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ua.vahskulat.dto.response.ErrorResponseAPI;
 import ua.vahskulat.dto.response.ErrorTitle;
 import ua.vahskulat.exception.UserEmailExistException;
 import ua.vahskulat.exception.UserNotFoundException;
+import ua.vahskulat.exception.UserVersionMismatchException;
 import ua.vahskulat.exception.UserWrongAgeException;
+import ua.vahskulat.exception.UserWrongCursorException;
 import ua.vahskulat.exception.UserWrongDateException;
 
 import java.time.LocalDateTime;
@@ -62,6 +67,34 @@ public class UserControllerAdvice {
 
     }
 
+    @ExceptionHandler(UserWrongCursorException.class)
+    public ResponseEntity<ErrorResponseAPI> handleUserWrongCursorException(UserWrongCursorException exception
+            , HttpServletRequest request) {
+
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponseAPI(
+                        ErrorTitle.INVALID_QUERY_PARAMETER.getError()
+                        , exception.getMessage()
+                        , request.getRequestURI()
+                        , LocalDateTime.now()
+                ));
+
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponseAPI> handleMethodArgumentTypeMismatchException(
+            MethodArgumentTypeMismatchException exception, HttpServletRequest request) {
+
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponseAPI(
+                        ErrorTitle.INVALID_QUERY_PARAMETER.getError()
+                        , " Wrong value " + exception.getValue() + " of parameter " + exception.getName() + " "
+                        , request.getRequestURI()
+                        , LocalDateTime.now()
+                ));
+
+    }
+
     @ExceptionHandler(UserWrongAgeException.class)
     public ResponseEntity<ErrorResponseAPI> handleUserWrongAgeException(UserWrongAgeException exception
             , HttpServletRequest request) {
@@ -90,6 +123,54 @@ public class UserControllerAdvice {
 
     }
 
+    @ExceptionHandler(UserVersionMismatchException.class)
+    public ResponseEntity<ErrorResponseAPI> handleUserVersionMismatchException(UserVersionMismatchException exception
+            , HttpServletRequest request) {
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(new ErrorResponseAPI(
+                        ErrorTitle.USER_MODIFIED.getError()
+                        , exception.getMessage()
+                        , request.getRequestURI()
+                        , LocalDateTime.now()
+                ));
+
+    }
+
+    /**
+     * Another request updated the user between the read and the write of this one. Without If-Match the client
+     * did not say which version it meant to change, so this is a conflict rather than a failed precondition.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponseAPI> handleObjectOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException exception
+            , HttpServletRequest request) {
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponseAPI(
+                        ErrorTitle.USER_MODIFIED.getError()
+                        , " User was modified by another request, read it again and retry "
+                        , request.getRequestURI()
+                        , LocalDateTime.now()
+                ));
+
+    }
+
+    /**
+     * The email check before a write only covers emails the service already knows about, a concurrent or
+     * unknown duplicate ends up here as a violation of the unique constraint on {@code users.email}.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponseAPI> handleDataIntegrityViolationException(
+            DataIntegrityViolationException exception
+            , HttpServletRequest request) {
+        if (!UserEmailExistException.isEmailTaken(exception)) {
+            throw exception;
+        }
+
+        return handleUserEmailExistException(new UserEmailExistException(" This email already used "), request);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponseAPI> handlerMethodArgumentNotValidException(MethodArgumentNotValidException exception
             , HttpServletRequest request) {
@@ -0,0 +1,164 @@
+package ua.vahskulat.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.model.Address;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes exported users one by one straight to the response, nothing is buffered beyond the stream buffer.
+ * The response is only opened with the first user (or by {@link #finish()}), so a failure before that
+ * still reaches the controller advice as a regular JSON error.
+ */
+public abstract class UserExportWriter implements Closeable {
+    private final HttpServletResponse response;
+    private final UserExportFormat format;
+    private boolean opened;
+
+    protected UserExportWriter(HttpServletResponse response, UserExportFormat format) {
+        this.response = response;
+        this.format = format;
+    }
+
+    public static UserExportWriter of(UserExportFormat format, HttpServletResponse response, ObjectMapper objectMapper) {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(response, objectMapper);
+            case CSV -> new CsvWriter(response);
+        };
+    }
+
+    public void write(UserResponseDto user) throws IOException {
+        open();
+        writeUser(user);
+    }
+
+    /**
+     * Same as {@link #write} for use inside lambdas.
+     */
+    public void writeUnchecked(UserResponseDto user) {
+        try {
+            write(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens the response even if nothing was exported, an empty range is still a successful export.
+     */
+    public void finish() throws IOException {
+        open();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (opened) {
+            closeOutput();
+        }
+    }
+
+    private void open() throws IOException {
+        if (!opened) {
+            response.setContentType(format.getContentType());
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            openOutput(response.getOutputStream());
+            opened = true;
+        }
+    }
+
+    protected abstract void openOutput(OutputStream out) throws IOException;
+
+    protected abstract void writeUser(UserResponseDto user) throws IOException;
+
+    protected abstract void closeOutput() throws IOException;
+
+    private static class NdjsonWriter extends UserExportWriter {
+        private final ObjectMapper objectMapper;
+        private SequenceWriter writer;
+
+        NdjsonWriter(HttpServletResponse response, ObjectMapper objectMapper) {
+            super(response, UserExportFormat.NDJSON);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected void openOutput(OutputStream out) throws IOException {
+            writer = objectMapper.writerFor(UserResponseDto.class)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out);
+        }
+
+        @Override
+        protected void writeUser(UserResponseDto user) throws IOException {
+            writer.write(user);
+        }
+
+        @Override
+        protected void closeOutput() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static class CsvWriter extends UserExportWriter {
+        private static final String HEADER = "email,firstName,lastName,birthDate,country,city,street,streetNumber"
+                + ",apartment,zip,phoneNumber";
+
+        private Writer writer;
+
+        CsvWriter(HttpServletResponse response) {
+            super(response, UserExportFormat.CSV);
+        }
+
+        @Override
+        protected void openOutput(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        protected void writeUser(UserResponseDto user) throws IOException {
+            Address address = user.address();
+            field(user.email(), false);
+            field(user.firstName(), false);
+            field(user.lastName(), false);
+            field(user.birthDate() == null ? null : user.birthDate().toString(), false);
+            field(address == null ? null : address.getCountry(), false);
+            field(address == null ? null : address.getCity(), false);
+            field(address == null ? null : address.getStreet(), false);
+            field(address == null ? null : address.getStreetNumber(), false);
+            field(address == null ? null : address.getApartment(), false);
+            field(address == null ? null : address.getZip(), false);
+            field(user.phoneNumber(), true);
+        }
+
+        private void field(String value, boolean last) throws IOException {
+            if (value != null) {
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                        || value.indexOf('\r') >= 0) {
+                    writer.write('"');
+                    writer.write(value.replace("\"", "\"\""));
+                    writer.write('"');
+                } else {
+                    writer.write(value);
+                }
+            }
+            writer.write(last ? '\n' : ',');
+        }
+
+        @Override
+        protected void closeOutput() throws IOException {
+            writer.close();
+        }
+    }
+}
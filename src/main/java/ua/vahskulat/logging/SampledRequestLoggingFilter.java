@@ -0,0 +1,49 @@
+package ua.vahskulat.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One INFO line per sampled request instead of several lines per request from the controller and the service.
+ * Server errors are always logged, the rest with the probability {@code user.logging.request-sample-rate}.
+ */
+@Slf4j
+@Component
+public class SampledRequestLoggingFilter extends OncePerRequestFilter {
+    private final double sampleRate;
+
+    public SampledRequestLoggingFilter(@Value("${user.logging.request-sample-rate}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!log.isInfoEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int status = response.getStatus();
+            if (sampled || status >= 500) {
+                log.info(" {} {} -> {} in {} ms ", request.getMethod(), request.getRequestURI(), status
+                        , TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+}
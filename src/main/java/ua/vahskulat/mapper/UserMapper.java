@@ -14,6 +14,7 @@ public interface UserMapper {
     UserMapper mapper = Mappers.getMapper(UserMapper.class);
 
     @Mapping(target = "id",ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toUser(UserCreateRequestDTO userDto);
     UserResponseDto toDTO(User user);
     List<UserResponseDto> toListDTO(List<User> listUsers);
@@ -3,6 +3,7 @@ package ua.vahskulat.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 
 @Getter
@@ -14,9 +15,10 @@ import java.time.LocalDate;
 @EqualsAndHashCode
 @ToString()
 @Builder
-public class User {
+public class User implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "email", unique = true, nullable = false)
@@ -35,4 +37,13 @@ public class User {
     private Address address;
     @Column
     private String phoneNumber;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    public User(Long id, String email, String firstName, LocalDate birthDate, String lastName, Address address
+            , String phoneNumber) {
+        this(id, email, firstName, birthDate, lastName, address, phoneNumber, null);
+    }
 }
@@ -0,0 +1,19 @@
+package ua.vahskulat.pagination;
+
+/**
+ * How the total number of users in a birth date range is reported by the offset search.
+ */
+public enum CountMode {
+    /**
+     * Runs a {@code count(*)} query and returns {@code totalElements}.
+     */
+    EXACT,
+    /**
+     * Skips the count, only tells whether there is a next page.
+     */
+    NONE,
+    /**
+     * Skips the count and returns the planner's row estimate from table statistics instead.
+     */
+    ESTIMATED
+}
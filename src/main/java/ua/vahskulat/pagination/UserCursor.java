@@ -0,0 +1,37 @@
+package ua.vahskulat.pagination;
+
+import ua.vahskulat.exception.UserWrongCursorException;
+import ua.vahskulat.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last user returned by a keyset (seek) page, ordered by {@code (birth_date, id)}.
+ * Clients only see it as an opaque token.
+ */
+public record UserCursor(LocalDate birthDate, Long id) {
+    private static final String SEPARATOR = ":";
+
+    public static UserCursor of(User user) {
+        return new UserCursor(user.getBirthDate(), user.getId());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((birthDate + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new UserCursor(LocalDate.parse(decoded.substring(0, separator))
+                    , Long.valueOf(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new UserWrongCursorException(" Cursor " + token + " is not valid ");
+        }
+    }
+}
@@ -1,16 +1,70 @@
 package ua.vahskulat.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ua.vahskulat.dto.response.UserResponseDto;
 import ua.vahskulat.model.User;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    /**
+     * Constructor projection for multi-row reads: every row becomes a plain, detached {@link User} without entity
+     * hydration, persistence context entry or dirty checking snapshot. Users read this way can be cached and
+     * returned but not updated or deleted, writes load the entity with {@link #findById}. A single user is read
+     * with {@link #findById} as well: in a read-only transaction the entity keeps no snapshot and a query by id
+     * saves nothing over it.
+     */
+    String SELECT_DETACHED_USER = "select new ua.vahskulat.model.User(u.id, u.email, u.firstName, u.birthDate"
+            + ", u.lastName, u.address, u.phoneNumber, u.version) from User u";
+    String SELECT_USER_RESPONSE = "select new ua.vahskulat.dto.response.UserResponseDto(u.email, u.firstName"
+            + ", u.lastName, u.birthDate, u.address, u.phoneNumber) from User u";
+
     boolean existsUserByEmail (String email);
 
+    @Query(SELECT_DETACHED_USER + " where u.id in :ids")
+    List<User> findDetachedByIdIn(Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    @Query(value = SELECT_DETACHED_USER + " where u.birthDate between :from and :to order by u.birthDate, u.id"
+            , countQuery = "select count(u) from User u where u.birthDate between :from and :to")
     Page<User> findUsersByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    @Query(SELECT_DETACHED_USER + " where u.birthDate between :from and :to order by u.birthDate, u.id")
+    Slice<User> findUserSliceByBirthDateBetween(LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * Reads the range through a server-side cursor, {@code fetch_size} rows per round trip, straight into
+     * response DTOs that the persistence context never sees.
+     * Must be consumed inside a transaction, otherwise the driver loads every row at once.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_USER_RESPONSE + " where u.birthDate between :from and :to order by u.birthDate, u.id")
+    Stream<UserResponseDto> streamUsersByBirthDateRange(LocalDate from, LocalDate to);
+
+    @Query(SELECT_DETACHED_USER + " where u.birthDate between :from and :to order by u.birthDate, u.id")
+    List<User> findFirstUsersByBirthDateRange(LocalDate from, LocalDate to, Pageable limit);
+
+    @Query(SELECT_DETACHED_USER + " where u.birthDate between :from and :to"
+            + " and (u.birthDate, u.id) > (:birthDate, :id) order by u.birthDate, u.id")
+    List<User> findUsersByBirthDateRangeAfter(LocalDate from, LocalDate to, LocalDate birthDate, Long id
+            , Pageable limit);
 }
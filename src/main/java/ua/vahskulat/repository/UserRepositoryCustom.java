@@ -0,0 +1,12 @@
+package ua.vahskulat.repository;
+
+import ua.vahskulat.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    long estimateUsersByBirthDateBetween(LocalDate from, LocalDate to);
+
+    void insertAllInBatches(List<User> users);
+}
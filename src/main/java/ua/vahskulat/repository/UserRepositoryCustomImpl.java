@@ -0,0 +1,56 @@
+package ua.vahskulat.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ua.vahskulat.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${user.bulk.jdbc-batch-size}")
+    private int jdbcBatchSize;
+
+    /**
+     * Asks the planner how many rows the range matches, which only reads table statistics
+     * and costs nothing compared to {@code count(*)} on a large table.
+     */
+    @Override
+    public long estimateUsersByBirthDateBetween(LocalDate from, LocalDate to) {
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT 1 FROM users WHERE birth_date BETWEEN ? AND ?", String.class, from, to);
+        Matcher rows = PLAN_ROWS.matcher(plan.get(0));
+        return rows.find() ? Long.parseLong(rows.group(1)) : 0;
+    }
+
+    /**
+     * Inserts new users in JDBC batches of {@code user.bulk.jdbc-batch-size}. Batching is set on this session
+     * only: for the single row writes everywhere else a batch of one statement is slower than the statement.
+     */
+    @Override
+    public void insertAllInBatches(List<User> users) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(jdbcBatchSize);
+        try {
+            users.forEach(entityManager::persist);
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(sessionBatchSize);
+        }
+    }
+}
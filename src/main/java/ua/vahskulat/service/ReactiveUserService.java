@@ -0,0 +1,17 @@
+package ua.vahskulat.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ua.vahskulat.model.User;
+
+import java.time.LocalDate;
+
+public interface ReactiveUserService {
+    Mono<User> getUserById(Long id);
+
+    Mono<Page<User>> getUsersByBirthDateRange(LocalDate from, LocalDate to, Pageable pageable);
+
+    Flux<User> streamUsersByBirthDateRange(LocalDate from, LocalDate to);
+}
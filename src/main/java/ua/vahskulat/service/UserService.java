@@ -2,20 +2,48 @@ package ua.vahskulat.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.Nullable;
+import ua.vahskulat.dto.response.UserImportResultDto;
+import ua.vahskulat.dto.response.UserResponseDto;
 import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.UserCursor;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserService {
     User createUser(User user);
 
+    List<UserImportResultDto> createUsers(List<User> users);
+
     void deleteUser(Long id);
 
     User getUserById(Long id);
 
-    User updateUserNames(Long id, String firstName, String lastName);
+    List<User> getUsersByIds(List<Long> ids);
+
+    /**
+     * Fails with {@code UserVersionMismatchException} unless {@code expectedVersions} is {@code null}
+     * or contains the current version of the user.
+     */
+    User updateUserNames(Long id, String firstName, String lastName, @Nullable Set<Long> expectedVersions);
 
-    User updateUser(Long id, User user);
+    /**
+     * Fails with {@code UserVersionMismatchException} unless {@code expectedVersions} is {@code null}
+     * or contains the current version of the user.
+     */
+    User updateUser(Long id, User user, @Nullable Set<Long> expectedVersions);
 
     Page<User> getUsersByBirthDateRange(LocalDate from, LocalDate to, Pageable pageable);
+
+    Slice<User> getUserSliceByBirthDateRange(LocalDate from, LocalDate to, Pageable pageable);
+
+    long estimateUsersByBirthDateRange(LocalDate from, LocalDate to);
+
+    void exportUsersByBirthDateRange(LocalDate from, LocalDate to, Consumer<UserResponseDto> consumer);
+
+    Slice<User> getUsersByBirthDateRangeAfter(LocalDate from, LocalDate to, UserCursor cursor, int size);
 }
@@ -0,0 +1,74 @@
+package ua.vahskulat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ua.vahskulat.datasource.ReadYourWrites;
+import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.UserCursor;
+import ua.vahskulat.service.ReactiveUserService;
+import ua.vahskulat.service.UserService;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking facade of {@link UserService}: the calls run on the JDBC scheduler, so the caller's thread
+ * (a Tomcat thread for the reactive controller) is released while the database is queried, and the cache,
+ * validation and metrics of {@link UserService} apply unchanged. A request that must read its own writes keeps
+ * reading from the primary on the scheduler thread.
+ */
+@Service
+@Slf4j
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    private final UserService userService;
+    private final Scheduler userJdbcScheduler;
+    private final int streamPageSize;
+
+    public ReactiveUserServiceImpl(UserService userService, Scheduler userJdbcScheduler
+            , @Value("${user.reactive.stream-page-size}") int streamPageSize) {
+        this.userService = userService;
+        this.userJdbcScheduler = userJdbcScheduler;
+        this.streamPageSize = streamPageSize;
+    }
+
+    @Override
+    public Mono<User> getUserById(Long id) {
+        return Mono.fromCallable(ReadYourWrites.propagate(() -> userService.getUserById(id)))
+                .subscribeOn(userJdbcScheduler);
+    }
+
+    @Override
+    public Mono<Page<User>> getUsersByBirthDateRange(LocalDate from, LocalDate to, Pageable pageable) {
+        return Mono.fromCallable(ReadYourWrites.propagate(() -> userService.getUsersByBirthDateRange(from, to, pageable)))
+                .subscribeOn(userJdbcScheduler);
+    }
+
+    /**
+     * The range in {@code (birth_date, id)} order, read as keyset pages of {@code user.reactive.stream-page-size}.
+     * The next page is only queried once the subscriber has requested the users of the previous one, so a slow
+     * reader holds neither a connection nor more than a page of users. An invalid range fails on the call, before
+     * anything is written.
+     */
+    @Override
+    public Flux<User> streamUsersByBirthDateRange(LocalDate from, LocalDate to) {
+        UserServiceImpl.validateDateRange(from, to);
+        log.debug(" Streaming users by birth date from {} to {}", from, to);
+        return page(from, to, null)
+                .expand(slice -> slice.hasNext()
+                        ? page(from, to, UserCursor.of(slice.getContent().get(slice.getNumberOfElements() - 1)))
+                        : Mono.empty())
+                .flatMapIterable(Slice::getContent, 1);
+    }
+
+    private Mono<Slice<User>> page(LocalDate from, LocalDate to, UserCursor cursor) {
+        return Mono.fromCallable(ReadYourWrites.propagate(
+                        () -> userService.getUsersByBirthDateRangeAfter(from, to, cursor, streamPageSize)))
+                .subscribeOn(userJdbcScheduler);
+    }
+}
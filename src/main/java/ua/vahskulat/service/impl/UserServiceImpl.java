@@ -1,77 +1,253 @@
 package ua.vahskulat.service.impl;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import ua.vahskulat.cache.MissingUserCache;
+import ua.vahskulat.cache.SingleFlight;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.cache.UserEmailFilter;
+import ua.vahskulat.cache.UserRangeCache;
+import ua.vahskulat.cache.UserRangeCache.RangeKey;
+import ua.vahskulat.dto.response.ErrorTitle;
+import ua.vahskulat.dto.response.UserImportResultDto;
+import ua.vahskulat.dto.response.UserResponseDto;
 import ua.vahskulat.exception.UserEmailExistException;
 import ua.vahskulat.exception.UserNotFoundException;
+import ua.vahskulat.exception.UserVersionMismatchException;
 import ua.vahskulat.exception.UserWrongAgeException;
 import ua.vahskulat.exception.UserWrongDateException;
 import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.UserCursor;
 import ua.vahskulat.repository.UserRepository;
 import ua.vahskulat.service.UserService;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+// one "user.service" timer per method, cache hits included
+@Timed(value = "user.service", histogram = true)
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserRangeCache userRangeCache;
+    private final MissingUserCache missingUserCache;
+    private final UserEmailFilter userEmailFilter;
+    private final SingleFlight<Long, User> userLoads;
+    private final SingleFlight<RangeKey, Slice<User>> rangeLoads;
+    private final TransactionOperations writeTransaction;
+    private final TransactionOperations cacheLoadTransaction;
 
     @Value("${user.minAge}")
     private int minAgeUser;
 
     @Override
     @Transactional
+    @CachePut(cacheNames = "user-cache", key = "#result.id")
     public User createUser(User user) {
-        log.info("Received request to create new user: {}", user);
         validateUser(user);
-        log.info(" Saving to database new user: {} ", user);
-        return userRepository.save(user);
+        log.debug(" Saving to database new user ");
+        userRangeCache.evictContaining(user.getBirthDate());
+        User savedUser = userRepository.save(user);
+        userEmailFilter.put(savedUser.getEmail());
+        missingUserCache.evict(savedUser.getId());
+        return savedUser;
 
     }
 
+    /**
+     * Creates a chunk of users in one transaction: emails are checked with a single query, invalid rows are
+     * reported instead of failing the whole chunk and the valid ones are inserted in JDBC batches.
+     * An email taken by a concurrent create after the check fails the insert, the chunk is then rolled back and
+     * created again row by row, each in a transaction of its own, so that only the rows whose email was taken fail.
+     * The result at position {@code i} describes {@code users.get(i)}.
+     */
+    @Override
+    public List<UserImportResultDto> createUsers(List<User> users) {
+        log.info(" Importing {} users ", users.size());
+        List<UserImportResultDto> results;
+        try {
+            results = writeTransaction.execute(status -> insertUsers(users));
+        } catch (DataIntegrityViolationException exception) {
+            if (!UserEmailExistException.isEmailTaken(exception)) {
+                throw exception;
+            }
+            log.debug(" An email of the chunk was taken meanwhile, importing its {} users one by one ", users.size());
+            results = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                results.add(insertUserAlone(users.get(i)).withIndex(i));
+            }
+        }
+        log.info(" Imported {} of {} users ", results.stream().filter(result -> result.id() != null).count()
+                , users.size());
+        return results;
+    }
+
+    private UserImportResultDto insertUserAlone(User user) {
+        // the rolled back insert of the chunk left its id and version on the user
+        user.setId(null);
+        user.setVersion(null);
+        try {
+            return writeTransaction.execute(status -> insertUsers(List.of(user))).get(0);
+        } catch (DataIntegrityViolationException exception) {
+            if (!UserEmailExistException.isEmailTaken(exception)) {
+                throw exception;
+            }
+            log.debug(" User email {} was taken by a concurrent create ", user.getEmail());
+            return UserImportResultDto.failed(0, user.getEmail(), ErrorTitle.USER_EMAIL_EXIST
+                    , " This email " + user.getEmail() + " already used ");
+        }
+    }
+
+    private List<UserImportResultDto> insertUsers(List<User> users) {
+        // not narrowed by the email filter: it misses emails created on other nodes since it was loaded, and one
+        // such duplicate would fail the insert of the whole chunk instead of its row
+        Set<String> usedEmails = new HashSet<>(userRepository.findExistingEmails(
+                users.stream().map(User::getEmail).toList()));
+
+        UserImportResultDto[] results = new UserImportResultDto[users.size()];
+        List<User> validUsers = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            try {
+                validationDate(user.getBirthDate());
+                validationUserAge(user);
+            } catch (UserWrongDateException exception) {
+                results[i] = UserImportResultDto.failed(i, user.getEmail(), ErrorTitle.WRONG_DATE, exception.getMessage());
+                continue;
+            } catch (UserWrongAgeException exception) {
+                results[i] = UserImportResultDto.failed(i, user.getEmail(), ErrorTitle.WRONG_AGE, exception.getMessage());
+                continue;
+            }
+            if (!usedEmails.add(user.getEmail())) {
+                results[i] = UserImportResultDto.failed(i, user.getEmail(), ErrorTitle.USER_EMAIL_EXIST
+                        , " This email " + user.getEmail() + " already used ");
+                continue;
+            }
+            validUsers.add(user);
+        }
+
+        if (!validUsers.isEmpty()) {
+            userRepository.insertAllInBatches(validUsers);
+            validUsers.forEach(user -> userEmailFilter.put(user.getEmail()));
+            userRangeCache.evictAll();
+            missingUserCache.evictAll();
+        }
+
+        for (int i = 0; i < users.size(); i++) {
+            if (results[i] == null) {
+                results[i] = UserImportResultDto.created(i, users.get(i));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {"user-cache", "user-json-cache"}, key = "#id")
     public void deleteUser(Long id) {
-        log.info(" Deleting user with id: {}", id);
-        userRepository.delete(findUserById(id));
+        log.debug(" Deleting user with id: {}", id);
+        User user = findUserById(id);
+        userRangeCache.evictContaining(user.getBirthDate());
+        userRepository.delete(user);
     }
 
+    /**
+     * Hits are answered from "user-cache" before a transaction is opened. A miss is loaded in a read-only
+     * transaction, on the replica when there is one: no flush, and the entity is read-only, so no dirty checking
+     * snapshot is kept. The user, or its absence, is cached inside that transaction, where it is known whether
+     * the read may have missed a write. Concurrent misses of the same id share one load, the callers that join
+     * it wait without taking a connection.
+     * An id without a user is kept in the {@link MissingUserCache} for a short while and answered from there.
+     */
     @Override
-    @Cacheable(cacheNames = "user-cache", key = "#id")
     public User getUserById(Long id) {
-        log.info("Getting user by ID: {}", id);
-        return findUserById(id);
+        log.debug("Getting user by ID: {}", id);
+        User cached = userCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        if (missingUserCache.contains(id)) {
+            throw userNotFound(id);
+        }
+        return userLoads.load(id, () -> cacheLoadTransaction.execute(status -> {
+            Optional<User> user = userRepository.findById(id);
+            if (user.isEmpty()) {
+                missingUserCache.put(id);
+                throw userNotFound(id);
+            }
+            userCache.fill(user.get());
+            return user.get();
+        }));
+    }
+
+    /**
+     * Users in the order of {@code ids}, with {@code null} where there is no user with that id.
+     * Cached users are not read again, the rest are loaded with a single query.
+     */
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        log.debug("Getting {} users by IDs", ids.size());
+        Map<Long, User> users = cacheLoadTransaction.execute(status -> userCache.getUsers(ids));
+        return ids.stream().map(users::get).toList();
     }
 
     @Override
     @Transactional
-    public User updateUserNames(Long id, String firstName, String lastName) {
-        log.info("Updating email for user with ID {}: ", id);
+    @CachePut(cacheNames = "user-cache", key = "#id")
+    @CacheEvict(cacheNames = "user-json-cache", key = "#id")
+    public User updateUserNames(Long id, String firstName, String lastName, @Nullable Set<Long> expectedVersions) {
+        log.debug("Updating email for user with ID {}: ", id);
 
         User user = findUserById(id);
+        validationVersion(user, expectedVersions);
         user.setFirstName(firstName);
         user.setLastName(lastName);
-        log.info("Updated names for user new firstName={}, new lastName={}", firstName, lastName);
+        log.debug("Updated names for user new firstName={}, new lastName={}", firstName, lastName);
 
-        return userRepository.save(user);
+        return saveVersioned(user, expectedVersions);
     }
 
     @Override
     @Transactional
-    public User updateUser(Long id, User user) {
-        validationUserEmail(user.getEmail());
-
+    @CachePut(cacheNames = "user-cache", key = "#id")
+    @CacheEvict(cacheNames = "user-json-cache", key = "#id")
+    public User updateUser(Long id, User user, @Nullable Set<Long> expectedVersions) {
         User userUpdate = findUserById(id);
+        validationVersion(userUpdate, expectedVersions);
+        if (!userUpdate.getEmail().equals(user.getEmail())) {
+            validationUserEmail(user.getEmail());
+            userEmailFilter.put(user.getEmail());
+        }
+        userRangeCache.evictContaining(userUpdate.getBirthDate());
+        userRangeCache.evictContaining(user.getBirthDate());
         userUpdate.setEmail(user.getEmail());
         userUpdate.setFirstName(user.getFirstName());
         userUpdate.setLastName(user.getLastName());
@@ -79,16 +255,91 @@ public class UserServiceImpl implements UserService {
         userUpdate.setAddress(user.getAddress());
         userUpdate.setPhoneNumber(user.getPhoneNumber());
 
-        log.info(" Update all user fields ");
-        return userRepository.save(userUpdate);
+        log.debug(" Update all user fields ");
+        return saveVersioned(userUpdate, expectedVersions);
     }
 
+    /**
+     * Read in a read-only transaction, which the page is cached in, concurrent calls for the same page share one
+     * cache lookup or load.
+     */
     @Override
-    @Cacheable(cacheNames = "user-cache", key = "{#from, #to, #pageable}")
     public Page<User> getUsersByBirthDateRange(LocalDate from, LocalDate to, Pageable pageable) {
         validateDateRange(from, to);
-        log.info(" Finding users by birth date from {} to {}", from, to);
-        return userRepository.findUsersByBirthDateBetween(from, to, pageable);
+        return (Page<User>) rangeLoads.load(RangeKey.of(from, to, pageable, true)
+                , () -> cacheLoadTransaction.execute(status -> {
+                    Page<User> users = userRangeCache.get(from, to, pageable);
+                    if (users == null) {
+                        log.debug(" Finding users by birth date from {} to {}", from, to);
+                        users = userRepository.findUsersByBirthDateBetween(from, to, pageable);
+                        userRangeCache.put(from, to, pageable, users);
+                    }
+                    return users;
+                }));
+    }
+
+    /**
+     * Same as {@link #getUsersByBirthDateRange} without the {@code count(*)} query: one extra row is fetched
+     * to know whether there is a next page.
+     */
+    @Override
+    public Slice<User> getUserSliceByBirthDateRange(LocalDate from, LocalDate to, Pageable pageable) {
+        validateDateRange(from, to);
+        return rangeLoads.load(RangeKey.of(from, to, pageable, false)
+                , () -> cacheLoadTransaction.execute(status -> {
+                    Slice<User> users = userRangeCache.getSlice(from, to, pageable);
+                    if (users == null) {
+                        log.debug(" Finding users slice by birth date from {} to {}", from, to);
+                        users = userRepository.findUserSliceByBirthDateBetween(from, to, pageable);
+                        userRangeCache.putSlice(from, to, pageable, users);
+                    }
+                    return users;
+                }));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long estimateUsersByBirthDateRange(LocalDate from, LocalDate to) {
+        validateDateRange(from, to);
+        return userRepository.estimateUsersByBirthDateBetween(from, to);
+    }
+
+    /**
+     * Hands every user of the range to {@code consumer} while it is read from the database cursor.
+     * The rows are projected straight into response DTOs, so the persistence context stays empty
+     * whatever the size of the export.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsersByBirthDateRange(LocalDate from, LocalDate to, Consumer<UserResponseDto> consumer) {
+        validateDateRange(from, to);
+        log.info(" Exporting users by birth date from {} to {}", from, to);
+        try (Stream<UserResponseDto> users = userRepository.streamUsersByBirthDateRange(from, to)) {
+            long[] count = {0};
+            users.forEach(user -> {
+                consumer.accept(user);
+                count[0]++;
+            });
+            log.info(" Exported {} users ", count[0]);
+        }
+    }
+
+    /**
+     * Keyset page ordered by {@code (birth_date, id)}: one extra row is fetched instead of a count query
+     * to know whether there is a next page, and a {@code null} cursor starts from the beginning of the range.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<User> getUsersByBirthDateRangeAfter(LocalDate from, LocalDate to, UserCursor cursor, int size) {
+        validateDateRange(from, to);
+        log.debug(" Scrolling users by birth date from {} to {} after {}", from, to, cursor);
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<User> users = cursor == null
+                ? userRepository.findFirstUsersByBirthDateRange(from, to, limit)
+                : userRepository.findUsersByBirthDateRangeAfter(from, to, cursor.birthDate(), cursor.id(), limit);
+
+        boolean hasNext = users.size() > size;
+        return new SliceImpl<>(hasNext ? users.subList(0, size) : users, PageRequest.ofSize(size), hasNext);
     }
 
 
@@ -97,22 +348,56 @@ public class UserServiceImpl implements UserService {
         int minAgeInDays = minAgeUser * 365;
 
         if (age.getDays() + age.getMonths() * 30 + age.getYears() * 365 < minAgeInDays) {
-            log.error("The user {} {} is under 18 years old.", user.getFirstName(), user.getLastName());
+            log.debug("The user {} {} is under 18 years old.", user.getFirstName(), user.getLastName());
             throw new UserWrongAgeException("User must be at least 18 years old");
         }
     }
 
+    /**
+     * Only asks the database about emails the filter may have seen, any other email goes straight to the
+     * insert or update, where the unique constraint has the final word (see {@code UserControllerAdvice}).
+     */
     private void validationUserEmail(String email) {
 
-        if (userRepository.existsUserByEmail(email)) {
-            log.error(" User email validation failed: {} is already used", email);
+        if (userEmailFilter.mightContain(email) && userRepository.existsUserByEmail(email)) {
+            log.debug(" User email validation failed: {} is already used", email);
             throw new UserEmailExistException(" This email " + email + " already used ");
         }
     }
 
-    private void validateDateRange(LocalDate from, LocalDate to) {
+    private void validationVersion(User user, @Nullable Set<Long> expectedVersions) {
+        if (expectedVersions != null && (user.getVersion() == null || !expectedVersions.contains(user.getVersion()))) {
+            log.debug(" User {} is at version {}, not {} ", user.getId(), user.getVersion(), expectedVersions);
+            throw new UserVersionMismatchException(" User " + user.getId() + " was modified, current version is "
+                    + user.getVersion() + " ");
+        }
+    }
+
+    /**
+     * Flushes the update here rather than at commit, so the returned user (and the one cached by
+     * {@code @CachePut}) carries the new version. A concurrent update since the read fails the flush, which
+     * is a failed precondition when the caller named the version it read.
+     */
+    private User saveVersioned(User user, @Nullable Set<Long> expectedVersions) {
+        try {
+            User savedUser = userRepository.save(user);
+            userRepository.flush();
+            return savedUser;
+        } catch (ObjectOptimisticLockingFailureException exception) {
+            if (expectedVersions == null) {
+                throw exception;
+            }
+            log.debug(" User {} was modified concurrently ", user.getId());
+            throw new UserVersionMismatchException(" User " + user.getId() + " was modified ");
+        }
+    }
+
+    /**
+     * Also the check of {@link ReactiveUserServiceImpl}, which must reject a range before it streams anything.
+     */
+    static void validateDateRange(LocalDate from, LocalDate to) {
         if (from.isAfter(to)) {
-            log.error(" Date range validation failed ");
+            log.debug(" Date range validation failed ");
             throw new UserWrongDateException(" From date " + from + " must be before To date " + to);
         }
 
@@ -120,17 +405,22 @@ public class UserServiceImpl implements UserService {
 
     private void validationDate(LocalDate birthDate) {
         if (birthDate.isAfter(LocalDate.now())) {
-            log.error(" The date of birth is incorrect : {} ", birthDate);
+            log.debug(" The date of birth is incorrect : {} ", birthDate);
             throw new UserWrongDateException(" Birth date must be earlier than current date ");
         }
     }
 
     private User findUserById(Long id) {
-        log.info("Finding user by ID: {}", id);
-        return userRepository.findById(id).orElseThrow(() -> {
-            log.error(" User whit id: {} not found ", id);
-            return new UserNotFoundException(" User with this " + id + " not found ");
-        });
+        log.debug("Finding user by ID: {}", id);
+        return userRepository.findById(id).orElseThrow(() -> userNotFound(id));
+    }
+
+    /**
+     * Unknown ids are a normal answer, to scrapers as much as to anybody, so they are only logged at debug.
+     */
+    private static UserNotFoundException userNotFound(Long id) {
+        log.debug(" User whit id: {} not found ", id);
+        return new UserNotFoundException(" User with this " + id + " not found ");
     }
 
     private void validateUser(User user) {
@@ -0,0 +1,4 @@
+-- Serves birth date range search and keyset pagination ordered by (birth_date, id).
+-- Built concurrently so that writes to users are not blocked while the index is created,
+-- which is why spring.flyway.postgresql.transactional-lock is disabled.
+CREATE INDEX CONCURRENTLY idx_users_birth_date_id ON users (birth_date, id);
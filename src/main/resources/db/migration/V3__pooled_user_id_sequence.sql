@@ -0,0 +1,3 @@
+-- User ids are allocated by Hibernate in blocks of 50 (pooled optimizer), which lets inserts be batched.
+-- The sequence hands out the upper bound of each block, so it has to step by the same allocation size.
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
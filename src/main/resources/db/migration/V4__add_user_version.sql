@@ -0,0 +1,4 @@
+-- Optimistic locking: every update of a user bumps its version and fails when the row was changed since it was read.
+-- The version is also the ETag of GET /api/v1/users/{id}. A constant default is stored in the catalog, so the table
+-- is not rewritten.
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
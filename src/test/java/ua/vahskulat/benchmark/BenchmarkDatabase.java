@@ -0,0 +1,106 @@
+package ua.vahskulat.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedded PostgreSQL the benchmarks run against, nothing has to be installed or downloaded. Started when the
+ * benchmark class is initialized and stopped after its tests:
+ * <pre>
+ * &#64;RegisterExtension
+ * static final BenchmarkDatabase database = new BenchmarkDatabase();
+ * </pre>
+ * Benchmarks that start the application through {@code @SpringBootTest} {@link #register} it and let the
+ * application migrate the schema, the ones that start it themselves {@link #migrate} first and pass the
+ * {@link #arguments} on.
+ */
+final class BenchmarkDatabase implements AfterAllCallback {
+    static final String DEFAULT_DATABASE = "postgres";
+    private static final String USER = "postgres";
+
+    private final EmbeddedPostgres postgres;
+
+    BenchmarkDatabase() {
+        try {
+            this.postgres = EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    DataSource dataSource(String database) {
+        return postgres.getDatabase(USER, database);
+    }
+
+    /**
+     * Creates {@code database} unless it is the default one and applies the Flyway migrations to it.
+     */
+    DataSource migrate(String database) {
+        if (!DEFAULT_DATABASE.equals(database)) {
+            new JdbcTemplate(dataSource(DEFAULT_DATABASE)).execute("create database " + database);
+        }
+        DataSource dataSource = dataSource(database);
+        Flyway.configure()
+                .dataSource(dataSource)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        return dataSource;
+    }
+
+    void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl(USER, DEFAULT_DATABASE));
+        registry.add("spring.datasource.username", () -> USER);
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * Command line arguments pointing the application at {@code database}.
+     */
+    List<String> arguments(String database) {
+        return List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl(USER, database),
+                "--spring.datasource.username=" + USER,
+                "--spring.datasource.password=");
+    }
+
+    /**
+     * Inserts {@code users} users with emails {@code <emailPrefix><n>@example.com} and birth dates spread over
+     * {@code birthDateDays} days from {@code firstBirthDate}, then vacuums and analyzes the table so the plans
+     * match a settled database.
+     *
+     * @return the ids of the inserted users in ascending order
+     */
+    static long[] seedUsers(JdbcTemplate jdbcTemplate, String emailPrefix, LocalDate firstBirthDate
+            , int birthDateDays, long users) {
+        jdbcTemplate.update("""
+                insert into users (birth_date, email, first_name, last_name, country, city, street, street_number, zip, phone_number)
+                select ?::date + (g % ?)::int, ? || g || '@example.com', 'First' || g, 'Last' || g
+                     , 'Ukraine', 'Kyiv', 'Khreshchatyk', (g % 200)::text, '01001', '+380' || lpad(g::text, 9, '0')
+                from generate_series(1, ?::int) g
+                """, firstBirthDate, birthDateDays, emailPrefix, users);
+        jdbcTemplate.execute("vacuum analyze users");
+        return jdbcTemplate.queryForList("select id from users where email like ? || '%' order by id", Long.class
+                , emailPrefix).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        try {
+            postgres.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
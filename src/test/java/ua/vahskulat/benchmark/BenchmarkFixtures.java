@@ -0,0 +1,79 @@
+package ua.vahskulat.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionOperations;
+import ua.vahskulat.cache.CacheFreshness;
+import ua.vahskulat.cache.MissingUserCache;
+import ua.vahskulat.cache.SingleFlight;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.cache.UserEmailFilter;
+import ua.vahskulat.cache.UserRangeCache;
+import ua.vahskulat.model.Address;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+import ua.vahskulat.service.impl.UserServiceImpl;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Users and an in-memory {@link UserRepository} for the JMH benchmarks, so they measure our code and not
+ * the database or a mocking library.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user(long id) {
+        return new User(id, "user" + id + "@example.com", "First" + id, LocalDate.of(1990, 1, 1).plusDays(id % 3650)
+                , "Last" + id, new Address("Ukraine", "Kyiv", "Khreshchatyk", "22", "15", "01001"), "+380501234567");
+    }
+
+    static List<User> users(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(BenchmarkFixtures::user).toList();
+    }
+
+    /**
+     * Finds any id, saves by returning the argument, knows no emails.
+     */
+    static UserRepository stubRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader()
+                , new Class<?>[]{UserRepository.class}
+                , (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.of(user((Long) args[0]));
+                    case "save" -> args[0];
+                    case "existsUserByEmail" -> false;
+                    case "streamAllEmails" -> Stream.empty();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "stubRepository";
+                    default -> null;
+                });
+    }
+
+    /**
+     * The service over the caches of {@code cacheManager}, without a transaction manager, loads are still
+     * coalesced and missing ids are cached.
+     */
+    static UserServiceImpl userService(UserRepository userRepository, CacheManager cacheManager
+            , UserEmailFilter userEmailFilter) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserCache userCache = new UserCache(cacheManager, userRepository, CacheFreshness.ALWAYS);
+        UserRangeCache userRangeCache = new UserRangeCache(cacheManager, userCache, (cacheName, key) -> {}
+                , CacheFreshness.ALWAYS);
+        MissingUserCache missingUserCache = new MissingUserCache(
+                new ConcurrentMapCacheManager(MissingUserCache.MISSING_USER_CACHE), (cacheName, key) -> {}
+                , CacheFreshness.ALWAYS);
+        return new UserServiceImpl(userRepository, userCache, userRangeCache, missingUserCache, userEmailFilter
+                , new SingleFlight<>(UserCache.USER_CACHE, meterRegistry)
+                , new SingleFlight<>(UserRangeCache.RANGE_CACHE, meterRegistry)
+                , TransactionOperations.withoutTransaction(), TransactionOperations.withoutTransaction());
+    }
+}
@@ -0,0 +1,74 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ua.vahskulat.cache.UserJsonCache;
+import ua.vahskulat.config.UserCacheProperties;
+import ua.vahskulat.controller.UserJsonResponse;
+import ua.vahskulat.dto.response.UserResponseAPI;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the body of {@code GET /api/v1/users/{id}} for a cached user into a reused buffer, the way the
+ * controller did before the encoded users were cached and the way it does with them.
+ * {@code -Djmh.args="-prof gc"} adds the bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserByIdResponseBenchmark {
+    private static final String PATH = "/api/v1/users/1";
+
+    private final UserMapper userMapper = UserMapper.mapper;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+    private ObjectMapper objectMapper;
+    private UserJsonCache userJsonCache;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.userJsonCache = new UserJsonCache(new ConcurrentMapCacheManager(UserJsonCache.USER_JSON_CACHE)
+                , objectMapper, new UserCacheProperties(Map.of(), new UserCacheProperties.Remote(false, "topic"), true));
+        this.user = BenchmarkFixtures.user(1);
+        user.setVersion(0L);
+    }
+
+    @Benchmark
+    public int mapAndSerialize() throws IOException {
+        body.reset();
+        objectMapper.writeValue(body, UserResponseAPI.<UserResponseDto>builder()
+                .data(userMapper.toDTO(user))
+                .path(PATH)
+                .build());
+        return body.size();
+    }
+
+    @Benchmark
+    public int encodedUser() throws IOException {
+        body.reset();
+        UserJsonResponse.of(userJsonCache.get(user), user, PATH).writeTo(body);
+        return body.size();
+    }
+}
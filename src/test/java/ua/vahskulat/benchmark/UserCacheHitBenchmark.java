@@ -0,0 +1,119 @@
+package ua.vahskulat.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.MapPropertySource;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.cache.UserEmailFilter;
+import ua.vahskulat.cache.UserRangeCache;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+import ua.vahskulat.service.UserService;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService#getUserById} answered from "user-cache" by the service behind its Spring cache proxy, next
+ * to a plain lookup in the same Caffeine cache to show what the proxy and the service cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserCacheHitBenchmark {
+    private static final long CACHED_USERS = 1000;
+
+    private AnnotationConfigApplicationContext context;
+    private UserService userService;
+    private Cache userCache;
+
+    @Setup
+    public void setUp() {
+        this.context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", Map.of("user.minAge", 18)));
+        context.register(CacheHitConfig.class);
+        context.refresh();
+
+        this.userService = context.getBean(UserService.class);
+        if (!AopUtils.isAopProxy(userService)) {
+            throw new IllegalStateException("UserService is not behind the cache proxy");
+        }
+        this.userCache = context.getBean(CacheManager.class).getCache(UserCache.USER_CACHE);
+        for (long id = 1; id <= CACHED_USERS; id++) {
+            userService.getUserById(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private long next;
+
+        long next() {
+            next = next % CACHED_USERS + 1;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public User getUserById(Ids ids) {
+        return userService.getUserById(ids.next());
+    }
+
+    @Benchmark
+    public User caffeineGet(Ids ids) {
+        return userCache.get(ids.next(), User.class);
+    }
+
+    /**
+     * Registered directly and deliberately not a {@code @Configuration}, so component scanning of the
+     * Spring Boot tests does not pick it up.
+     */
+    @EnableCaching
+    static class CacheHitConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(UserCache.USER_CACHE
+                    , UserRangeCache.RANGE_CACHE);
+            cacheManager.setAllowNullValues(false);
+            return cacheManager;
+        }
+
+        @Bean
+        UserRepository userRepository() {
+            return BenchmarkFixtures.stubRepository();
+        }
+
+        @Bean
+        UserService userService(CacheManager cacheManager, UserRepository userRepository) {
+            return BenchmarkFixtures.userService(userRepository, cacheManager
+                    , new UserEmailFilter(userRepository, 1000, 0.01));
+        }
+    }
+}
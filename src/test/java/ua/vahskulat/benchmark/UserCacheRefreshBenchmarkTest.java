@@ -0,0 +1,144 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ua.vahskulat.UserServiceApplication;
+import ua.vahskulat.service.UserService;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency of {@code getUserById} over a hot set of users that all fit into "user-cache", once with a hard TTL
+ * only and once with the same TTL as backstop behind a soft one. The cache is filled at the start, so with the
+ * hard TTL the whole hot set expires together every {@code refresh.benchmark.ttl} seconds. Each mode runs
+ * {@code refresh.benchmark.threads} threads for {@code refresh.benchmark.duration} seconds against an embedded
+ * PostgreSQL, prints p50/p99/p999/max and the loads on the request path, and writes them to
+ * target/cache-refresh-result.json.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserCacheRefreshBenchmarkTest -Dsurefire.redirectTestOutputToFile=true}
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserCacheRefreshBenchmarkTest {
+    private static final int USERS = Integer.getInteger("refresh.benchmark.users", 2_000);
+    private static final int THREADS = Integer.getInteger("refresh.benchmark.threads", 8);
+    private static final int TTL_SECONDS = Integer.getInteger("refresh.benchmark.ttl", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("refresh.benchmark.duration", 40);
+    private static final String USER_CACHE = "--user.cache.caches.user-cache.";
+
+    @RegisterExtension
+    static final BenchmarkDatabase database = new BenchmarkDatabase();
+
+    private long[] seededIds;
+
+    @BeforeAll
+    void seed() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database.migrate(BenchmarkDatabase.DEFAULT_DATABASE));
+        seededIds = BenchmarkDatabase.seedUsers(jdbcTemplate, "seed-", LocalDate.of(1950, 1, 1), 20_000, USERS);
+    }
+
+    @Test
+    void hardExpiryAgainstRefreshAhead() throws Exception {
+        Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+        report.put("hard TTL", measure(""));
+        report.put("refresh ahead", measure(TTL_SECONDS * 1000 / 2 + "ms"));
+
+        System.out.printf("%n%d users, %d threads, %d s TTL, %d s per mode, %d cores%n", USERS, THREADS, TTL_SECONDS
+                , DURATION_SECONDS, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-16s %12s %10s %10s %10s %10s %12s%n"
+                , "mode", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "misses");
+        report.forEach((mode, line) -> System.out.printf("%-16s %12.0f %10.3f %10.3f %10.3f %10.3f %12.0f%n", mode
+                , line.get("throughput"), line.get("p50"), line.get("p99"), line.get("p999"), line.get("max")
+                , line.get("misses")));
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File("target/cache-refresh-result.json"), report);
+
+        assertTrue(report.values().stream().allMatch(line -> (double) line.get("throughput") > 0));
+    }
+
+    private Map<String, Object> measure(String refreshAfterWrite) throws Exception {
+        List<String> args = new ArrayList<>(database.arguments(BenchmarkDatabase.DEFAULT_DATABASE));
+        args.addAll(List.of(
+                USER_CACHE + "maximum-size=" + USERS * 2,
+                USER_CACHE + "expire-after-write=" + TTL_SECONDS + "s",
+                USER_CACHE + "refresh-after-write=" + refreshAfterWrite));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new))) {
+            UserService userService = context.getBean(UserService.class);
+            for (long id : seededIds) {
+                userService.getUserById(id);
+            }
+            double loads = loads(context);
+
+            Histogram histogram = run(userService);
+
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("throughput", histogram.getTotalCount() / (double) DURATION_SECONDS);
+            line.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+            line.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+            line.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+            line.put("max", histogram.getMaxValue() / 1000.0);
+            line.put("misses", loads(context) - loads);
+            return line;
+        }
+    }
+
+    private static double loads(ConfigurableApplicationContext context) {
+        return context.getBean(MeterRegistry.class).get("user.cache.loads").tag("cache", "user-cache")
+                .tag("result", "loaded").counter().count();
+    }
+
+    /**
+     * Latencies in microseconds.
+     */
+    private Histogram run(UserService userService) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Histogram>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                Histogram histogram = newHistogram();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    long id = seededIds[random.nextInt(seededIds.length)];
+                    long start = System.nanoTime();
+                    userService.getUserById(id);
+                    histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                }
+                return histogram;
+            }));
+        }
+        Histogram total = newHistogram();
+        for (Future<Histogram> future : futures) {
+            total.add(future.get());
+        }
+        executor.shutdown();
+        return total;
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+    }
+}
@@ -0,0 +1,150 @@
+package ua.vahskulat.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Opens {@code connections.count} connections at once, each asking for a different (uncached) user, against
+ * the reactive {@code /api/v1/reactive/users/{id}} and the servlet {@code /api/v1/users/{id}}. Both are run once
+ * to warm up and then measured, printing the peak number of Tomcat threads busy with a request, the peak number
+ * of live threads, the peak heap and the latencies. Client and server share the JVM, the client only adds its
+ * two selector/executor threads.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserConcurrentConnectionsTest -Dconnections.count=10000}
+ * <p>
+ * Every connection is a socket on both ends of the same process, so the open file limit has to be above twice
+ * the count.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserConcurrentConnectionsTest {
+    private static final int CONNECTIONS = Integer.getInteger("connections.count", 10_000);
+
+    @RegisterExtension
+    static final BenchmarkDatabase database = new BenchmarkDatabase();
+
+    private final ExecutorService clientExecutor = Executors.newFixedThreadPool(2);
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .executor(clientExecutor)
+            .build();
+    private long[] ids;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        database.register(registry);
+        registry.add("user.cache.caches.user-cache.maximum-size", () -> "0");
+    }
+
+    @BeforeAll
+    void seed() {
+        this.ids = BenchmarkDatabase.seedUsers(jdbcTemplate, "conn-", LocalDate.of(1950, 1, 1), 20_000, CONNECTIONS);
+    }
+
+    @Test
+    void reactiveAndServletReadsAtManyConcurrentConnections() throws Exception {
+        run("reactive", "/api/v1/reactive/users/", false);
+        run("servlet", "/api/v1/users/", false);
+
+        System.out.printf("%n%d concurrent connections%n", CONNECTIONS);
+        System.out.printf("%-10s %10s %12s %12s %10s %10s %10s %8s%n"
+                , "endpoint", "busy thr.", "live thr.", "peak heap MB", "p50 ms", "p99 ms", "max ms", "errors");
+        run("reactive", "/api/v1/reactive/users/", true);
+        run("servlet", "/api/v1/users/", true);
+        clientExecutor.shutdown();
+    }
+
+    private void run(String name, String path, boolean report) throws Exception {
+        System.gc();
+        ThreadPoolExecutor requestThreads = (ThreadPoolExecutor) ((TomcatWebServer) context.getWebServer())
+                .getTomcat().getConnector().getProtocolHandler().getExecutor();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakBusy = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            peakBusy.accumulateAndGet(requestThreads.getActiveCount(), Math::max);
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        Histogram latencies = new Histogram(TimeUnit.MINUTES.toMicros(2), 3);
+        AtomicLong errors = new AtomicLong();
+        List<CompletableFuture<?>> responses = new ArrayList<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            long start = System.nanoTime();
+            responses.add(client.sendAsync(request(path, ids[i]), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, failure) -> {
+                        synchronized (latencies) {
+                            latencies.recordValue(Math.min((System.nanoTime() - start) / 1000, latencies.getHighestTrackableValue()));
+                        }
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        sampler.shutdownNow();
+        assertEquals(0, errors.get());
+        if (!report) {
+            return;
+        }
+
+        // the sampler thread is not part of the server
+        System.out.printf("%-10s %10d %12d %12d %10.2f %10.2f %10.2f %8d%n", name, peakBusy.get()
+                , threads.getPeakThreadCount() - 1, peakHeap.get() / (1024 * 1024)
+                , latencies.getValueAtPercentile(50) / 1000.0, latencies.getValueAtPercentile(99) / 1000.0
+                , latencies.getMaxValue() / 1000.0, errors.get());
+    }
+
+    private HttpRequest request(String path, long id) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path + id))
+                .timeout(Duration.ofMinutes(2))
+                .GET()
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ua.vahskulat.dto.request.UserCreateRequestDTO;
+import ua.vahskulat.dto.response.UserResponseAPI;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes a range search page and a create request in each encoding the user API accepts, and
+ * encodes the page through gzip the way Tomcat compresses it. UserPayloadSizeBenchmarkTest prints the sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserEncodingBenchmark {
+    static final TypeReference<UserResponseAPI<List<UserResponseDto>>> PAGE = new TypeReference<>() {
+    };
+
+    @State(Scope.Benchmark)
+    public static class Page {
+        @Param({"json", "smile", "cbor"})
+        private String format;
+        @Param({"10", "1000"})
+        private int size;
+
+        private ObjectMapper objectMapper;
+        private UserResponseAPI<List<UserResponseDto>> page;
+        private byte[] encoded;
+
+        @Setup
+        public void setUp() throws IOException {
+            this.objectMapper = objectMapper(format);
+            this.page = UserResponseAPI.<List<UserResponseDto>>builder()
+                    .data(UserMapper.mapper.toListDTO(BenchmarkFixtures.users(size)))
+                    .totalElements(size)
+                    .path("/api/v1/users")
+                    .build();
+            this.encoded = objectMapper.writeValueAsBytes(page);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CreateRequest {
+        @Param({"json", "smile", "cbor"})
+        private String format;
+
+        private ObjectMapper objectMapper;
+        private UserCreateRequestDTO createRequest;
+        private byte[] encoded;
+
+        @Setup
+        public void setUp() throws IOException {
+            this.objectMapper = objectMapper(format);
+            this.createRequest = createRequest(BenchmarkFixtures.user(1));
+            this.encoded = objectMapper.writeValueAsBytes(createRequest);
+        }
+    }
+
+    static ObjectMapper objectMapper(String format) {
+        return switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+
+    static UserCreateRequestDTO createRequest(User user) {
+        return new UserCreateRequestDTO(user.getEmail(), user.getFirstName(), user.getLastName(), user.getBirthDate()
+                , user.getAddress(), user.getPhoneNumber());
+    }
+
+    @Benchmark
+    public byte[] encodePage(Page page) throws IOException {
+        return page.objectMapper.writeValueAsBytes(page.page);
+    }
+
+    @Benchmark
+    public UserResponseAPI<List<UserResponseDto>> decodePage(Page page) throws IOException {
+        return page.objectMapper.readValue(page.encoded, PAGE);
+    }
+
+    @Benchmark
+    public int encodePageGzip(Page page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            page.objectMapper.writeValue(gzip, page.page);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public byte[] encodeCreateRequest(CreateRequest request) throws IOException {
+        return request.objectMapper.writeValueAsBytes(request.createRequest);
+    }
+
+    @Benchmark
+    public UserCreateRequestDTO decodeCreateRequest(CreateRequest request) throws IOException {
+        return request.objectMapper.readValue(request.encoded, UserCreateRequestDTO.class);
+    }
+}
@@ -0,0 +1,110 @@
+package ua.vahskulat.benchmark;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ua.vahskulat.export.UserExportFormat;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exports {@code benchmark.rows} users (1M by default) through {@code /api/v1/users/export} and prints
+ * rows/s, bytes and peak heap. Seeds its own rows with birth dates in 1800, removes them afterwards.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserExportBenchmarkTest -Dbenchmark.rows=1000000}
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+        , properties = "spring.jpa.show-sql=false")
+class UserExportBenchmarkTest {
+    private static final String FROM = "1800-01-01";
+    private static final String TO = "1800-12-31";
+
+    private final long rows = Long.getLong("benchmark.rows", 1_000_000);
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        cleanUp();
+        BenchmarkDatabase.seedUsers(jdbcTemplate, "export-bench-", LocalDate.parse(FROM), 365, rows);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("delete from users where email like 'export-bench-%'");
+    }
+
+    @ParameterizedTest
+    @EnumSource(UserExportFormat.class)
+    void export(UserExportFormat format) throws Exception {
+        // warm-up pass so the numbers below do not include class loading and JIT
+        run(format);
+        resetPeakHeap();
+
+        long start = System.nanoTime();
+        long[] result = run(format);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(rows, format == UserExportFormat.CSV ? result[0] - 1 : result[0]);
+        System.out.printf("export %s: %d rows, %.1f MB in %.2f s -> %.0f rows/s, %.1f MB/s, peak heap %d MB%n",
+                format, rows, result[1] / 1e6, seconds, rows / seconds, result[1] / 1e6 / seconds,
+                peakHeap() / (1024 * 1024));
+    }
+
+    private long[] run(UserExportFormat format) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                + "/api/v1/users/export?fromDate=" + FROM + "&toDate=" + TO + "&format=" + format)).build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+
+        long lines = 0;
+        long bytes = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                bytes += line.length() + 1;
+            }
+        }
+        return new long[]{lines, bytes};
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+}
@@ -0,0 +1,208 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ua.vahskulat.UserServiceApplication;
+import ua.vahskulat.model.Address;
+import ua.vahskulat.model.User;
+import ua.vahskulat.service.UserService;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of the service against an embedded PostgreSQL with the datasource settings of the prod profile
+ * switched on one after the other, starting from the driver, Hikari and Hibernate defaults. Every step starts the
+ * application anew on a fresh copy of the seeded database and runs each workload with
+ * {@code jdbc.benchmark.threads} threads for {@code jdbc.benchmark.warmup} and then
+ * {@code jdbc.benchmark.duration} seconds. The last step is the prod profile itself. The steps run forwards and
+ * then backwards and the mean is reported, so that the steps are not favoured by their place in the run. Caches
+ * are off, so every call reaches the database. Prints ops/s (users/s for the import) per step and workload and
+ * writes them to target/jdbc-settings-result.json.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserJdbcSettingsBenchmarkTest -Dsurefire.redirectTestOutputToFile=true}
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserJdbcSettingsBenchmarkTest {
+    private static final int USERS = Integer.getInteger("jdbc.benchmark.users", 100_000);
+    private static final int THREADS = Integer.getInteger("jdbc.benchmark.threads", 8);
+    private static final int WARMUP_SECONDS = Integer.getInteger("jdbc.benchmark.warmup", 3);
+    private static final int DURATION_SECONDS = Integer.getInteger("jdbc.benchmark.duration", 6);
+    private static final int IMPORT_CHUNK = 100;
+    private static final int PAGE_SIZE = 100;
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    private static final int BIRTH_DATE_DAYS = 20_000;
+    private static final String HIBERNATE = "spring.jpa.properties.hibernate.";
+    private static final String DRIVER = "spring.datasource.hikari.data-source-properties.";
+    private static final String SEED_DATABASE = "seed";
+    private static final String STEP_DATABASE = "step";
+
+    @RegisterExtension
+    static final BenchmarkDatabase database = new BenchmarkDatabase();
+
+    private final AtomicLong emails = new AtomicLong();
+    private long[] seededIds;
+
+    /**
+     * In the order they run, the import last so that the rows it adds and the vacuum they trigger do not slow
+     * down the other workloads.
+     */
+    enum Workload {
+        UPDATE, GET_BY_ID, RANGE, IMPORT
+    }
+
+    /**
+     * Seeds the template database every step starts from a copy of.
+     */
+    @BeforeAll
+    void seed() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database.migrate(SEED_DATABASE));
+        seededIds = BenchmarkDatabase.seedUsers(jdbcTemplate, "seed-", FIRST_BIRTH_DATE, BIRTH_DATE_DAYS, USERS);
+    }
+
+    @Test
+    void settingByStep() throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("user.bulk.jdbc-batch-size", "0");
+        settings.put(HIBERNATE + "order_inserts", "false");
+
+        Map<String, Map<String, String>> steps = new LinkedHashMap<>();
+        steps.put("defaults", Map.copyOf(settings));
+        settings.put("user.bulk.jdbc-batch-size", "100");
+        settings.put(HIBERNATE + "order_inserts", "true");
+        steps.put("+ import batching", Map.copyOf(settings));
+        settings.put(DRIVER + "reWriteBatchedInserts", "true");
+        steps.put("+ reWriteBatchedInserts", Map.copyOf(settings));
+        settings.put(DRIVER + "prepareThreshold", "1");
+        settings.put(DRIVER + "preparedStatementCacheQueries", "512");
+        settings.put(DRIVER + "preparedStatementCacheSizeMiB", "8");
+        steps.put("+ server prepared", Map.copyOf(settings));
+        settings.put(HIBERNATE + "jdbc.fetch_size", "1000");
+        steps.put("+ fetch size", Map.copyOf(settings));
+        settings.put("user.datasource.pool.size-from-cores", "true");
+        steps.put("+ pool from cores", Map.copyOf(settings));
+        steps.put("prod profile", Map.of("spring.profiles.active", "prod"));
+
+        // the JVM warms up from step to step: after an unreported first run the steps run forwards and then
+        // backwards, and the mean of both runs is reported
+        measure("warm-up", steps.get("defaults"));
+        List<String> order = new ArrayList<>(steps.keySet());
+        List<String> reversed = new ArrayList<>(order);
+        Collections.reverse(reversed);
+        Map<String, Map<Workload, Double>> report = new LinkedHashMap<>();
+        order.forEach(step -> report.put(step, new EnumMap<>(Workload.class)));
+        for (List<String> run : List.of(order, reversed)) {
+            for (String step : run) {
+                measure(step, steps.get(step)).forEach((workload, ops) ->
+                        report.get(step).merge(workload, ops / 2, Double::sum));
+            }
+        }
+
+        System.out.printf("%n%d users, %d threads, %d s per workload, %d cores%n", USERS, THREADS, DURATION_SECONDS
+                , Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-24s %12s %12s %12s %12s%n", "step", "import/s", "update/s", "by id/s", "range/s");
+        report.forEach((step, throughput) -> System.out.printf("%-24s %12.0f %12.0f %12.0f %12.0f%n", step
+                , throughput.get(Workload.IMPORT), throughput.get(Workload.UPDATE), throughput.get(Workload.GET_BY_ID)
+                , throughput.get(Workload.RANGE)));
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File("target/jdbc-settings-result.json"), report);
+
+        assertTrue(report.values().stream().allMatch(throughput -> throughput.values().stream().allMatch(ops -> ops > 0)));
+    }
+
+    private Map<Workload, Double> measure(String step, Map<String, String> properties) {
+        JdbcTemplate admin = new JdbcTemplate(database.dataSource(BenchmarkDatabase.DEFAULT_DATABASE));
+        admin.execute("drop database if exists " + STEP_DATABASE);
+        admin.execute("create database " + STEP_DATABASE + " template " + SEED_DATABASE);
+        List<String> args = new ArrayList<>(database.arguments(STEP_DATABASE));
+        args.addAll(List.of(
+                "--user.cache.caches.user-cache.maximum-size=0",
+                "--user.cache.caches.user-range-cache.maximum-size=0"));
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+
+        Map<Workload, Double> throughput = new EnumMap<>(Workload.class);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new))) {
+            UserService userService = context.getBean(UserService.class);
+            for (Workload workload : Workload.values()) {
+                run(userService, workload, WARMUP_SECONDS);
+                throughput.put(workload, run(userService, workload, DURATION_SECONDS) / (double) DURATION_SECONDS);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Step " + step + " failed", e);
+        }
+        return throughput;
+    }
+
+    /**
+     * Returns the number of users imported, or of calls for the other workloads.
+     */
+    private long run(UserService userService, Workload workload, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    count += call(userService, workload);
+                }
+                return count;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+        return total;
+    }
+
+    private int call(UserService userService, Workload workload) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = seededIds[random.nextInt(seededIds.length)];
+        switch (workload) {
+            case IMPORT -> {
+                List<User> users = new ArrayList<>(IMPORT_CHUNK);
+                for (int i = 0; i < IMPORT_CHUNK; i++) {
+                    users.add(new User(null, "jdbc-" + emails.incrementAndGet() + "@example.com", "Import"
+                            , FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_DAYS)), "User"
+                            , new Address("Ukraine", "Kyiv", "Khreshchatyk", "22", "15", "01001"), "+380501234567"));
+                }
+                userService.createUsers(users);
+                return IMPORT_CHUNK;
+            }
+            case UPDATE -> userService.updateUserNames(id, "Updated", "User" + id, null);
+            case GET_BY_ID -> userService.getUserById(id);
+            case RANGE -> {
+                LocalDate from = FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_DAYS));
+                userService.getUserSliceByBirthDateRange(from, from.plusDays(30), PageRequest.of(0, PAGE_SIZE));
+            }
+        }
+        return 1;
+    }
+}
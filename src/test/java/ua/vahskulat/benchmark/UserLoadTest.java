@@ -0,0 +1,255 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the whole service over HTTP against an embedded PostgreSQL, nothing has to be installed or
+ * downloaded. Seeds {@code loadtest.users} users, then {@code loadtest.threads} clients each send the next
+ * request as soon as the previous one is answered, for {@code loadtest.warmup} and then {@code loadtest.duration}
+ * seconds. The mix is reads by id, range searches, creates, PUT, PATCH and deletes of users created by the test.
+ * Prints throughput and p50/p99/p999 latency per operation and writes them to target/load-test-result.json.
+ * Logging is left as configured for the application, run with {@code -Dsurefire.redirectTestOutputToFile=true}
+ * to keep it out of the console.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserLoadTest -Dloadtest.users=100000 -Dloadtest.threads=8}
+ * <p>
+ * To compare the request thread models at high concurrency run it twice with more clients than Tomcat threads
+ * (200), once as is and once with {@code -Dspring.threads.virtual.enabled=true} on JDK 21:
+ * {@code -Dloadtest.threads=400}. Pinned virtual threads are printed by the benchmark profile.
+ * <p>
+ * The clients are closed loop, so a stall delays the next requests instead of piling them up and the high
+ * percentiles are a lower bound of what an open loop client would see.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserLoadTest {
+    private static final int USERS = Integer.getInteger("loadtest.users", 100_000);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 8);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 30);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 30);
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    private static final int BIRTH_DATE_DAYS = 20_000;
+
+    @RegisterExtension
+    static final BenchmarkDatabase database = new BenchmarkDatabase();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private long[] seededIds;
+    private String[] seededEmails;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Environment environment;
+
+    enum Operation {
+        GET_BY_ID(60), RANGE_SEARCH(15), CREATE(10), PUT(5), PATCH(5), DELETE(5);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation next() {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            for (Operation operation : values()) {
+                roll -= operation.weight;
+                if (roll < 0) {
+                    return operation;
+                }
+            }
+            return GET_BY_ID;
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        database.register(registry);
+    }
+
+    @BeforeAll
+    void seed() {
+        BenchmarkDatabase.seedUsers(jdbcTemplate, "seed-", FIRST_BIRTH_DATE, BIRTH_DATE_DAYS, USERS);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select id, email from users where email like 'seed-%'");
+        this.seededIds = rows.stream().mapToLong(row -> ((Number) row.get("id")).longValue()).toArray();
+        this.seededEmails = rows.stream().map(row -> (String) row.get("email")).toArray(String[]::new);
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        run(WARMUP_SECONDS);
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        long started = System.nanoTime();
+        for (Worker worker : run(DURATION_SECONDS)) {
+            worker.histograms.forEach((operation, histogram) ->
+                    histograms.computeIfAbsent(operation, key -> newHistogram()).add(histogram));
+            worker.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Histogram total = newHistogram();
+        histograms.values().forEach(total::add);
+        Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+        String threading = Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform";
+        System.out.printf("%n%d users, %d threads, %d s, %s request threads%n", USERS, THREADS, DURATION_SECONDS
+                , threading);
+        System.out.printf("%-14s %10s %10s %10s %10s %10s %10s %8s%n"
+                , "operation", "count", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        histograms.forEach((operation, histogram) ->
+                report.put(operation.name(), line(operation.name(), histogram, errors.getOrDefault(operation, 0L), seconds)));
+        report.put("TOTAL", line("TOTAL", total, errors.values().stream().mapToLong(Long::longValue).sum(), seconds));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File("target/load-test-result.json"), report);
+
+        assertTrue(total.getTotalCount() > 0);
+    }
+
+    private List<Worker> run(int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> new Worker().run(deadline)));
+        }
+        List<Worker> workers = new ArrayList<>();
+        for (Future<Worker> future : futures) {
+            workers.add(future.get());
+        }
+        executor.shutdown();
+        return workers;
+    }
+
+    private Map<String, Object> line(String name, Histogram histogram, long errors, double seconds) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("count", histogram.getTotalCount());
+        line.put("throughput", histogram.getTotalCount() / seconds);
+        line.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        line.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        line.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        line.put("max", histogram.getMaxValue() / 1000.0);
+        line.put("errors", errors);
+        System.out.printf("%-14s %10d %10.0f %10.2f %10.2f %10.2f %10.2f %8d%n", name, line.get("count")
+                , line.get("throughput"), line.get("p50"), line.get("p99"), line.get("p999"), line.get("max"), errors);
+        return line;
+    }
+
+    /**
+     * Latencies in microseconds, up to a minute.
+     */
+    private static Histogram newHistogram() {
+        return new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+    }
+
+    private class Worker {
+        private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+        Worker run(long deadline) throws Exception {
+            while (System.nanoTime() < deadline) {
+                Operation operation = Operation.next();
+                HttpRequest request = request(operation);
+                if (request == null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                long micros = (System.nanoTime() - start) / 1000;
+                histograms.computeIfAbsent(operation, key -> newHistogram())
+                        .recordValue(Math.min(micros, TimeUnit.MINUTES.toMicros(1)));
+                if (response.statusCode() >= 400) {
+                    errors.merge(operation, 1L, Long::sum);
+                } else if (operation == Operation.CREATE) {
+                    response.headers().firstValue("Location")
+                            .ifPresent(location -> createdIds.add(Long.parseLong(location.substring(location.lastIndexOf('/') + 1))));
+                }
+            }
+            return this;
+        }
+
+        private HttpRequest request(Operation operation) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int seeded = random.nextInt(seededIds.length);
+            return switch (operation) {
+                case GET_BY_ID -> HttpRequest.newBuilder(uri("/" + seededIds[seeded])).GET().build();
+                case RANGE_SEARCH -> {
+                    LocalDate from = FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_DAYS));
+                    yield HttpRequest.newBuilder(uri("?fromDate=" + from + "&toDate=" + from.plusDays(30)
+                            + "&page=0&size=20")).GET().build();
+                }
+                case CREATE -> json(HttpRequest.newBuilder(uri("")), "POST"
+                        , user("load-" + UUID.randomUUID() + "@example.com"));
+                case PUT -> json(HttpRequest.newBuilder(uri("/" + seededIds[seeded])), "PUT", user(seededEmails[seeded]));
+                case PATCH -> json(HttpRequest.newBuilder(uri("/" + seededIds[seeded])), "PATCH"
+                        , "{\"firstName\":\"Patched\",\"lastName\":\"User" + seeded + "\"}");
+                case DELETE -> {
+                    Long id = createdIds.poll();
+                    yield id == null ? null : HttpRequest.newBuilder(uri("/" + id)).DELETE().build();
+                }
+            };
+        }
+
+        private String user(String email) {
+            LocalDate birthDate = FIRST_BIRTH_DATE.plusDays(ThreadLocalRandom.current().nextInt(BIRTH_DATE_DAYS));
+            return "{\"email\":\"" + email + "\",\"firstName\":\"Load\",\"lastName\":\"Test\",\"birthDate\":\""
+                    + birthDate + "\",\"phoneNumber\":\"+380501234567\",\"address\":{\"country\":\"Ukraine\""
+                    + ",\"city\":\"Kyiv\",\"street\":\"Khreshchatyk\",\"streetNumber\":\"1\",\"zip\":\"01001\"}}";
+        }
+
+        private HttpRequest json(HttpRequest.Builder builder, String method, String body) {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private URI uri(String path) {
+            return URI.create("http://localhost:" + port + "/api/v1/users" + path);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ua.vahskulat.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+    @Param({"10", "1000"})
+    private int size;
+
+    private final UserMapper userMapper = UserMapper.mapper;
+    private User user;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        this.user = BenchmarkFixtures.user(1);
+        this.users = BenchmarkFixtures.users(size);
+    }
+
+    @Benchmark
+    public UserResponseDto toDTO() {
+        return userMapper.toDTO(user);
+    }
+
+    @Benchmark
+    public List<UserResponseDto> toListDTO() {
+        return userMapper.toListDTO(users);
+    }
+}
@@ -0,0 +1,134 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ua.vahskulat.UserServiceApplication;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 404s per second of {@code GET /api/v1/users/{id}} for ids that do not exist, over HTTP against an embedded
+ * PostgreSQL, with the cache of missing ids off and on. {@code notfound.benchmark.threads} clients ask for
+ * random ids out of {@code notfound.benchmark.ids} unknown ones, the way a scraper walks an id range again and
+ * again, for {@code notfound.benchmark.warmup} and then {@code notfound.benchmark.duration} seconds. The modes
+ * run forwards and then backwards after an unreported first run. Prints the mean 404s per second per mode and
+ * writes them to target/not-found-result.json. Clients and server share the machine, so on few cores the
+ * numbers include the cost of the clients.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserNotFoundBenchmarkTest -Dsurefire.redirectTestOutputToFile=true}
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserNotFoundBenchmarkTest {
+    private static final int USERS = 1_000;
+    private static final int UNKNOWN_IDS = Integer.getInteger("notfound.benchmark.ids", 10_000);
+    private static final int THREADS = Integer.getInteger("notfound.benchmark.threads", 8);
+    private static final int WARMUP_SECONDS = Integer.getInteger("notfound.benchmark.warmup", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("notfound.benchmark.duration", 20);
+    private static final String MISSING_USER_CACHE = "--user.cache.caches.missing-user-cache.";
+
+    @RegisterExtension
+    static final BenchmarkDatabase database = new BenchmarkDatabase();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private long firstUnknownId;
+
+    @BeforeAll
+    void seed() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database.migrate(BenchmarkDatabase.DEFAULT_DATABASE));
+        long[] ids = BenchmarkDatabase.seedUsers(jdbcTemplate, "seed-", LocalDate.of(1950, 1, 1), USERS, USERS);
+        firstUnknownId = ids[ids.length - 1] + 1_000_000;
+    }
+
+    @Test
+    void notFoundPerSecond() throws Exception {
+        Map<String, Integer> modes = new LinkedHashMap<>();
+        modes.put("missing ids not cached", 0);
+        modes.put("missing ids cached", UNKNOWN_IDS);
+
+        // after an unreported first run the modes run forwards and then backwards, the mean of both is reported
+        measure(UNKNOWN_IDS);
+        List<String> order = new ArrayList<>(modes.keySet());
+        List<String> reversed = new ArrayList<>(order);
+        Collections.reverse(reversed);
+        Map<String, Double> report = new LinkedHashMap<>();
+        for (List<String> run : List.of(order, reversed)) {
+            for (String mode : run) {
+                report.merge(mode, measure(modes.get(mode)) / 2, Double::sum);
+            }
+        }
+
+        System.out.printf("%n%d unknown ids, %d threads, %d s, %d cores%n", UNKNOWN_IDS, THREADS, DURATION_SECONDS
+                , Runtime.getRuntime().availableProcessors());
+        report.forEach((mode, throughput) -> System.out.printf("%-24s %10.0f 404/s%n", mode, throughput));
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File("target/not-found-result.json"), report);
+    }
+
+    private double measure(int missingUserCacheSize) throws Exception {
+        List<String> args = new ArrayList<>(database.arguments(BenchmarkDatabase.DEFAULT_DATABASE));
+        args.addAll(List.of(
+                "--server.port=0",
+                MISSING_USER_CACHE + "maximum-size=" + missingUserCacheSize,
+                MISSING_USER_CACHE + "expire-after-write=10s"));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .run(args.toArray(String[]::new))) {
+            String users = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/api/v1/users/";
+            run(users, WARMUP_SECONDS);
+            return run(users, DURATION_SECONDS) / (double) DURATION_SECONDS;
+        }
+    }
+
+    private long run(String users, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    long id = firstUnknownId + ThreadLocalRandom.current().nextInt(UNKNOWN_IDS);
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(users + id)).GET()
+                            .build(), HttpResponse.BodyHandlers.discarding());
+                    assertEquals(404, response.statusCode());
+                    count++;
+                }
+                return count;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+        return total;
+    }
+}
@@ -0,0 +1,80 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ua.vahskulat.dto.request.UserCreateRequestDTO;
+import ua.vahskulat.dto.response.UserResponseAPI;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bytes of a create request and of range search pages of {@code PAGE_SIZES} users in each encoding the user API
+ * accepts, as they are and gzipped, and checks that each decodes back to what was encoded. Prints the sizes and
+ * writes them to target/payload-size-result.json. UserEncodingBenchmark measures the time.
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserPayloadSizeBenchmarkTest}
+ */
+@Tag("benchmark")
+class UserPayloadSizeBenchmarkTest {
+    private static final List<String> FORMATS = List.of("json", "smile", "cbor");
+    private static final int[] PAGE_SIZES = {1, 10, 100, 1000};
+
+    @Test
+    void payloadSizes() throws IOException {
+        UserCreateRequestDTO createRequest = UserEncodingBenchmark.createRequest(BenchmarkFixtures.user(1));
+
+        Map<String, Map<String, long[]>> report = new LinkedHashMap<>();
+        for (String format : FORMATS) {
+            ObjectMapper objectMapper = UserEncodingBenchmark.objectMapper(format);
+            Map<String, long[]> sizes = report.computeIfAbsent(format, key -> new LinkedHashMap<>());
+
+            byte[] encoded = objectMapper.writeValueAsBytes(createRequest);
+            assertEquals(createRequest, objectMapper.readValue(encoded, UserCreateRequestDTO.class));
+            sizes.put("create request", new long[]{encoded.length, gzip(encoded)});
+
+            for (int pageSize : PAGE_SIZES) {
+                List<UserResponseDto> users = UserMapper.mapper.toListDTO(BenchmarkFixtures.users(pageSize));
+                encoded = objectMapper.writeValueAsBytes(UserResponseAPI.<List<UserResponseDto>>builder()
+                        .data(users)
+                        .totalElements(pageSize)
+                        .path("/api/v1/users")
+                        .build());
+                assertEquals(users, objectMapper.readValue(encoded, UserEncodingBenchmark.PAGE).getData());
+                sizes.put("page of " + pageSize, new long[]{encoded.length, gzip(encoded)});
+            }
+        }
+
+        System.out.printf("%n%-16s", "bytes (gzip)");
+        FORMATS.forEach(format -> System.out.printf(" %20s", format));
+        System.out.println();
+        for (String payload : report.get(FORMATS.get(0)).keySet()) {
+            System.out.printf("%-16s", payload);
+            for (String format : FORMATS) {
+                long[] sizes = report.get(format).get(payload);
+                System.out.printf(" %20s", sizes[0] + " (" + sizes[1] + ")");
+            }
+            System.out.println();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File("target/payload-size-result.json")
+                , report);
+    }
+
+    private static long gzip(byte[] encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(encoded);
+        }
+        return out.size();
+    }
+}
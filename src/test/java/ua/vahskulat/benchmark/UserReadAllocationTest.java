@@ -0,0 +1,173 @@
+package ua.vahskulat.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.AvailableHints;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated and time per read, entity reads as they were before against the projections now used by
+ * {@code UserServiceImpl} for ranges and exports, and the by id load that stays an entity against a projection. Both include the JDBC driver and the mapping to {@link UserResponseDto}, the
+ * allocations are those of the calling thread (com.sun.management.ThreadMXBean).
+ * <p>
+ * {@code mvn test -Pbenchmark -Dtest=UserReadAllocationTest -Dallocation.iterations=20000}
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest
+class UserReadAllocationTest {
+    private static final int USERS = 100_000;
+    private static final int ITERATIONS = Integer.getInteger("allocation.iterations", 20_000);
+    private static final int PAGE_SIZE = 20;
+    private static final int EXPORT_ROWS = 10_000;
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    private static final String ENTITY_RANGE = "select u from User u where u.birthDate between :from and :to"
+            + " order by u.birthDate, u.id";
+
+    @RegisterExtension
+    static final BenchmarkDatabase database = new BenchmarkDatabase();
+
+    private final UserMapper userMapper = UserMapper.mapper;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private long[] ids;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        database.register(registry);
+    }
+
+    @BeforeAll
+    void seed() {
+        this.ids = BenchmarkDatabase.seedUsers(jdbcTemplate, "alloc-", FIRST_BIRTH_DATE, 20_000, USERS);
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void entityReadsAgainstProjections() {
+        System.out.printf("%n%-28s %14s %12s%n", "read", "bytes/op", "us/op");
+
+        // a single user stays a read-only entity load, without a snapshot there is little for a projection to save
+        measure("by id, entity", ITERATIONS, () -> readOnly.execute(status ->
+                userMapper.toDTO(userRepository.findById(randomId()).orElseThrow())));
+        measure("by id, projection", ITERATIONS, () -> readOnly.execute(status ->
+                userMapper.toDTO(entityManager.createQuery(UserRepository.SELECT_DETACHED_USER + " where u.id = :id"
+                        , User.class).setParameter("id", randomId()).getSingleResult())));
+
+        // the range queries used to run outside a transaction, with managed entities and snapshots
+        double[] entityRange = measure("range of 20, entity", ITERATIONS / 10, () -> readWrite.execute(status -> {
+            LocalDate from = randomBirthDate();
+            return userMapper.toListDTO(entityManager.createQuery(ENTITY_RANGE, User.class)
+                    .setParameter("from", from).setParameter("to", from.plusDays(365))
+                    .setMaxResults(PAGE_SIZE + 1)
+                    .getResultList());
+        }));
+        double[] projectionRange = measure("range of 20, projection", ITERATIONS / 10, () -> readOnly.execute(status -> {
+            LocalDate from = randomBirthDate();
+            return userMapper.toListDTO(userRepository.findUserSliceByBirthDateBetween(from, from.plusDays(365)
+                    , PageRequest.ofSize(PAGE_SIZE)).getContent());
+        }));
+
+        // per exported row: read-only entities cleared every 1000 rows against DTOs
+        double[] entityExport = measure("export row, entity", 20, () -> readOnly.execute(status -> {
+            LocalDate from = randomBirthDate();
+            try (Stream<User> users = entityManager.createQuery(ENTITY_RANGE, User.class)
+                    .setParameter("from", from).setParameter("to", from.plusDays(2000))
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, 1000)
+                    .setHint(AvailableHints.HINT_READ_ONLY, true)
+                    .setMaxResults(EXPORT_ROWS)
+                    .getResultStream()) {
+                long[] count = {0};
+                users.forEach(user -> {
+                    userMapper.toDTO(user);
+                    if (++count[0] % 1000 == 0) {
+                        entityManager.clear();
+                    }
+                });
+                return count[0];
+            }
+        }), EXPORT_ROWS);
+        double[] projectionExport = measure("export row, projection", 20, () -> readOnly.execute(status -> {
+            LocalDate from = randomBirthDate();
+            try (Stream<UserResponseDto> users = userRepository.streamUsersByBirthDateRange(from, from.plusDays(2000))) {
+                return users.limit(EXPORT_ROWS).count();
+            }
+        }), EXPORT_ROWS);
+
+        assertTrue(projectionRange[0] < entityRange[0]);
+        assertTrue(projectionExport[0] < entityExport[0]);
+    }
+
+    private double[] measure(String name, int iterations, Read read) {
+        return measure(name, iterations, read, 1);
+    }
+
+    /**
+     * Runs {@code read} as warm-up and then measured, returns bytes and microseconds per operation,
+     * an operation being {@code 1 / perCall} of a call.
+     */
+    private double[] measure(String name, int iterations, Read read, int perCall) {
+        for (int i = 0; i < iterations; i++) {
+            read.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            read.run();
+        }
+        double operations = (double) iterations * perCall;
+        double[] result = {(threads.getThreadAllocatedBytes(threadId) - bytes) / operations
+                , (System.nanoTime() - start) / 1000.0 / operations};
+        System.out.printf("%-28s %14.0f %12.2f%n", name, result[0], result[1]);
+        return result;
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private LocalDate randomBirthDate() {
+        return FIRST_BIRTH_DATE.plusDays(ThreadLocalRandom.current().nextInt(15_000));
+    }
+
+    @FunctionalInterface
+    private interface Read {
+        Object run();
+    }
+}
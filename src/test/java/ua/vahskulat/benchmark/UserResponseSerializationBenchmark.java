@@ -0,0 +1,55 @@
+package ua.vahskulat.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ua.vahskulat.dto.response.UserResponseAPI;
+import ua.vahskulat.dto.response.UserResponseDto;
+import ua.vahskulat.mapper.UserMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the range search response envelope the way the controller returns it,
+ * with an {@link ObjectMapper} configured like the one Spring Boot builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseSerializationBenchmark {
+    @Param({"10", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private UserResponseAPI<List<UserResponseDto>> response;
+
+    @Setup
+    public void setUp() {
+        this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.response = UserResponseAPI.<List<UserResponseDto>>builder()
+                .data(UserMapper.mapper.toListDTO(BenchmarkFixtures.users(size)))
+                .totalElements(size)
+                .path("/api/v1/users")
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
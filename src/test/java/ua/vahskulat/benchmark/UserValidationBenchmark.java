@@ -0,0 +1,68 @@
+package ua.vahskulat.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.cache.UserEmailFilter;
+import ua.vahskulat.cache.UserRangeCache;
+import ua.vahskulat.exception.UserWrongAgeException;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+import ua.vahskulat.service.impl.UserServiceImpl;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation done by {@link UserServiceImpl#createUser} in front of the insert: birth date, age and email.
+ * The repository is an in-memory stub, so what is left is the validation and the range cache eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserValidationBenchmark {
+    private UserServiceImpl userService;
+    private User validUser;
+    private User underAgeUser;
+
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = BenchmarkFixtures.stubRepository();
+        UserEmailFilter userEmailFilter = new UserEmailFilter(userRepository, 1_000_000, 0.01);
+        userEmailFilter.load();
+
+        this.userService = BenchmarkFixtures.userService(userRepository
+                , new CaffeineCacheManager(UserCache.USER_CACHE, UserRangeCache.RANGE_CACHE), userEmailFilter);
+        ReflectionTestUtils.setField(userService, "minAgeUser", 18);
+        this.validUser = BenchmarkFixtures.user(1);
+        this.underAgeUser = BenchmarkFixtures.user(2);
+        underAgeUser.setBirthDate(LocalDate.now().minusYears(10));
+    }
+
+    @Benchmark
+    public User createUser_valid() {
+        return userService.createUser(validUser);
+    }
+
+    @Benchmark
+    public Object createUser_underAge() {
+        try {
+            return userService.createUser(underAgeUser);
+        } catch (UserWrongAgeException exception) {
+            return exception;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ua.vahskulat.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local stand-in for the Redis topic: delivers every message to all subscribed nodes except the sender.
+ */
+class InMemoryCacheInvalidationBus {
+    private final Map<String, CacheInvalidationListener> subscribers = new ConcurrentHashMap<>();
+
+    CacheInvalidationPublisher publisher(String origin) {
+        return (cacheName, key) -> {
+            CacheInvalidationMessage message = new CacheInvalidationMessage(origin, cacheName, key);
+            subscribers.forEach((node, listener) -> {
+                if (!node.equals(origin)) {
+                    listener.onInvalidation(message);
+                }
+            });
+        };
+    }
+
+    void subscribe(String origin, CacheInvalidationListener listener) {
+        subscribers.put(origin, listener);
+    }
+}
@@ -0,0 +1,75 @@
+package ua.vahskulat.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCaffeineCacheTest {
+    private LocalCaffeineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        this.cache = new LocalCaffeineCache("user-cache", Caffeine.newBuilder().build(), false
+                , CacheFreshness.ALWAYS);
+    }
+
+    @Test
+    void testGet_Miss_LoadsAndCaches() {
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded"));
+
+        assertEquals("loaded", cache.get(1L, () -> "loaded again"));
+    }
+
+    @Test
+    void testGet_LoaderWritesSameKey_LoadsOutsideCompute() {
+
+        // inside Caffeine's compute the write of the same key would fail as a recursive update
+        String value = cache.get(1L, () -> {
+            cache.put(1L, "written meanwhile");
+            return "loaded";
+        });
+
+        assertEquals("written meanwhile", value);
+        assertEquals("written meanwhile", cache.get(1L, String.class));
+    }
+
+    @Test
+    void testGet_LoaderReturnsNull_CachesNothing() {
+
+        assertNull(cache.get(1L, () -> null));
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void testEvictAndClear_ReportWritesBeforeDropping() {
+
+        List<String> written = new ArrayList<>();
+        this.cache = new LocalCaffeineCache("user-cache", Caffeine.newBuilder().build(), false, new CacheFreshness() {
+            @Override
+            public void written(String cacheName, Object key) {
+                written.add(key + "=" + cache.getNativeCache().asMap().get(1L));
+            }
+
+            @Override
+            public boolean mayFill(String cacheName, Predicate<Object> keys) {
+                return true;
+            }
+        });
+        cache.put(1L, "cached");
+        cache.putIfAbsent(2L, "filled");
+
+        cache.evict(1L);
+        cache.put(1L, "written");
+        cache.clear();
+
+        assertEquals(List.of("1=cached", "null=written"), written);
+    }
+}
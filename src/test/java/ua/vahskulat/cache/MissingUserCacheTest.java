@@ -0,0 +1,55 @@
+package ua.vahskulat.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MissingUserCacheTest {
+    private CacheInvalidationPublisher publisher;
+    private MissingUserCache missingUserCache;
+
+    @BeforeEach
+    void setUp() {
+        this.publisher = mock(CacheInvalidationPublisher.class);
+        this.missingUserCache = new MissingUserCache(new CaffeineCacheManager(MissingUserCache.MISSING_USER_CACHE)
+                , publisher, CacheFreshness.ALWAYS);
+
+        missingUserCache.put(1L);
+        missingUserCache.put(2L);
+    }
+
+    @Test
+    void testEvict_CreatedUser_DropsIdAndTellsOtherNodes() {
+
+        missingUserCache.evict(1L);
+
+        assertFalse(missingUserCache.contains(1L));
+        assertTrue(missingUserCache.contains(2L));
+        verify(publisher, times(1)).publish(MissingUserCache.MISSING_USER_CACHE, 1L);
+    }
+
+    @Test
+    void testEvictAll_DropsAllIdsAndTellsOtherNodes() {
+
+        missingUserCache.evictAll();
+
+        assertFalse(missingUserCache.contains(1L));
+        assertFalse(missingUserCache.contains(2L));
+        verify(publisher, times(1)).publish(MissingUserCache.MISSING_USER_CACHE, null);
+    }
+
+    @Test
+    void testOnInvalidation_FromOtherNode_DropsId() {
+
+        missingUserCache.onInvalidation(new CacheInvalidationMessage("node-b", MissingUserCache.MISSING_USER_CACHE
+                , 1L));
+        missingUserCache.onInvalidation(new CacheInvalidationMessage("node-b", UserRangeCache.RANGE_CACHE, null));
+
+        assertFalse(missingUserCache.contains(1L));
+        assertTrue(missingUserCache.contains(2L));
+        verifyNoInteractions(publisher);
+    }
+}
@@ -0,0 +1,118 @@
+package ua.vahskulat.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadCacheTest {
+    private static final Duration REFRESH_AFTER_WRITE = Duration.ofSeconds(100);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private Function<Object, Object> loader;
+    private double random;
+    private RefreshAheadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        this.loader = key -> "fresh";
+        this.random = 0.99;
+        this.cache = new RefreshAheadCache("user-cache", Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(200))
+                .ticker(nanos::get)
+                .build(), REFRESH_AFTER_WRITE, key -> loader.apply(key), refreshes::add, CacheFreshness.ALWAYS
+                , () -> random);
+        cache.put(1L, "stale");
+    }
+
+    private void advance(int seconds) {
+        nanos.addAndGet(Duration.ofSeconds(seconds).toNanos());
+    }
+
+    private void runRefreshes() {
+        List<Runnable> pending = List.copyOf(refreshes);
+        refreshes.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    @Test
+    void testGet_PastRefreshAfterWrite_ServesCachedValueAndReloadsInBackground() {
+
+        advance(150);
+
+        assertEquals("stale", cache.get(1L, String.class));
+        assertEquals("stale", cache.get(1L, String.class));
+        assertEquals(1, refreshes.size());
+
+        runRefreshes();
+
+        assertEquals("fresh", cache.get(1L, String.class));
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void testGetWithLoader_HitPastRefreshAfterWrite_ReloadsAndMissIsLoaded() {
+
+        advance(150);
+
+        assertEquals("stale", cache.get(1L, () -> "loaded"));
+        assertEquals(1, refreshes.size());
+        assertEquals("loaded", cache.get(2L, () -> "loaded"));
+        assertEquals("loaded", cache.get(2L, String.class));
+    }
+
+    @Test
+    void testGet_InEarlyRefreshWindow_ReloadsWithProbabilityGrowingWithAge() {
+
+        advance(80);
+        this.random = 0.0;
+        cache.get(1L);
+        assertTrue(refreshes.isEmpty());
+
+        advance(15);
+        this.random = 0.6;
+        cache.get(1L);
+        assertTrue(refreshes.isEmpty());
+
+        this.random = 0.4;
+        cache.get(1L);
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void testRefresh_ValueWrittenMeanwhile_IsKept() {
+
+        advance(150);
+        cache.get(1L);
+
+        cache.put(1L, "written");
+        runRefreshes();
+
+        assertEquals("written", cache.get(1L, String.class));
+    }
+
+    @Test
+    void testRefresh_FailedOrGone_KeepsValueUntilExpiryOrDropsIt() {
+
+        advance(150);
+        this.loader = key -> {
+            throw new IllegalStateException("database down");
+        };
+        cache.get(1L);
+        runRefreshes();
+        assertEquals("stale", cache.get(1L, String.class));
+
+        this.loader = key -> null;
+        runRefreshes();
+
+        assertNull(cache.get(1L));
+    }
+}
@@ -0,0 +1,74 @@
+package ua.vahskulat.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<Long, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.singleFlight = new SingleFlight<>("user-cache", meterRegistry);
+    }
+
+    private double loads(String result) {
+        return meterRegistry.get("user.cache.loads").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testLoad_ConcurrentCallsOfOneKey_ShareFailureOfOneLoad() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.load(1L, () -> {
+                await(release);
+                throw new IllegalStateException("database down");
+            }));
+            while (loads("loaded") == 0) {
+                Thread.onSpinWait();
+            }
+            Future<String> follower = executor.submit(() -> singleFlight.load(1L, () -> "not called"));
+            while (loads("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+            assertSame(leaderFailure.getCause(), followerFailure.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLoad_AfterLoadIsOver_LoadsAgain() {
+
+        assertEquals("first", singleFlight.load(1L, () -> "first"));
+        assertEquals("second", singleFlight.load(1L, () -> "second"));
+
+        assertEquals(2, loads("loaded"));
+        assertEquals(0, loads("coalesced"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
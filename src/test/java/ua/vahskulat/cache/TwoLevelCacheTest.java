@@ -0,0 +1,165 @@
+package ua.vahskulat.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.transaction.support.TransactionOperations;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+import ua.vahskulat.service.UserService;
+import ua.vahskulat.service.impl.UserServiceImpl;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+    private ConcurrentMapCacheManager sharedStore;
+    private TwoLevelCacheManager nodeACacheManager;
+    private TwoLevelCache nodeA;
+    private TwoLevelCache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        this.sharedStore = new ConcurrentMapCacheManager("user-cache");
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+
+        this.nodeACacheManager = node(bus, "node-a");
+        this.nodeA = (TwoLevelCache) nodeACacheManager.getCache("user-cache");
+        this.nodeB = (TwoLevelCache) node(bus, "node-b").getCache("user-cache");
+    }
+
+    private TwoLevelCacheManager node(InMemoryCacheInvalidationBus bus, String origin) {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(new ConcurrentMapCacheManager("user-cache")
+                , sharedStore, bus.publisher(origin), Set.of());
+        cacheManager.initializeCaches();
+        bus.subscribe(origin, cacheManager);
+        return cacheManager;
+    }
+
+    private User user(String firstName) {
+        return new User(1L, "example@gmail.com", firstName,
+                LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+    }
+
+    @Test
+    void testGet_LocalMiss_ReadsSharedStoreAndFillsLocal() {
+
+        nodeA.put(1L, user("Serhii"));
+
+        assertNull(nodeB.getLocalCache().get(1L));
+        assertEquals("Serhii", nodeB.get(1L, User.class).getFirstName());
+        assertNotNull(nodeB.getLocalCache().get(1L));
+    }
+
+    @Test
+    void testPut_OnOneNode_DropsStaleLocalEntryOnOtherNode() {
+
+        nodeA.put(1L, user("Serhii"));
+        nodeB.get(1L);
+
+        nodeA.put(1L, user("updateFN"));
+
+        assertNull(nodeB.getLocalCache().get(1L));
+        assertEquals("updateFN", nodeB.get(1L, User.class).getFirstName());
+        assertNotNull(nodeA.getLocalCache().get(1L));
+    }
+
+    @Test
+    void testEvict_OnOneNode_RemovesEntryEverywhere() {
+
+        nodeA.put(1L, user("Serhii"));
+        nodeB.get(1L);
+
+        nodeA.evict(1L);
+
+        assertNull(nodeA.get(1L));
+        assertNull(nodeB.get(1L));
+        assertNull(sharedStore.getCache("user-cache").get(1L));
+    }
+
+    @Test
+    void testClear_OnOneNode_ClearsLocalEntriesOnOtherNode() {
+
+        nodeA.put(1L, user("Serhii"));
+        nodeB.get(1L);
+
+        nodeA.clear();
+
+        Cache local = nodeB.getLocalCache();
+        assertNull(local.get(1L));
+        assertNull(nodeB.get(1L));
+    }
+
+    @Test
+    void testPutIfAbsent_FillsCacheWithoutInvalidatingOtherNodes() {
+
+        nodeA.put(1L, user("Serhii"));
+        nodeB.get(1L);
+
+        nodeA.putIfAbsent(1L, user("Serhii"));
+
+        assertNotNull(nodeB.getLocalCache().get(1L));
+    }
+
+    @Test
+    void testGetWithLoader_Miss_LoadsOnceAndStoresInBothLevels() {
+
+        User loaded = nodeA.get(1L, () -> user("Serhii"));
+        User cached = nodeA.get(1L, () -> user("other"));
+
+        assertEquals("Serhii", loaded.getFirstName());
+        assertEquals("Serhii", cached.getFirstName());
+        assertNotNull(sharedStore.getCache("user-cache").get(1L));
+    }
+
+    @Test
+    void testGetUserById_ReadMiss_DoesNotInvalidateOtherNodes() {
+
+        nodeB.getLocalCache().put(1L, user("Serhii"));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user("Serhii")));
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("user", Map.of("user.minAge", 18)));
+            context.register(CachingConfig.class);
+            context.registerBean(CacheManager.class, () -> nodeACacheManager);
+            context.registerBean(UserService.class, () -> userService(userRepository, nodeACacheManager));
+            context.refresh();
+
+            assertEquals("Serhii", context.getBean(UserService.class).getUserById(1L).getFirstName());
+        }
+
+        verify(userRepository, times(1)).findById(1L);
+        assertNotNull(nodeA.getLocalCache().get(1L));
+        assertNotNull(nodeB.getLocalCache().get(1L));
+    }
+
+    private static UserService userService(UserRepository userRepository, CacheManager cacheManager) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new UserServiceImpl(userRepository
+                , new UserCache(cacheManager, userRepository, CacheFreshness.ALWAYS), mock(UserRangeCache.class)
+                , new MissingUserCache(new ConcurrentMapCacheManager(MissingUserCache.MISSING_USER_CACHE)
+                , (cacheName, key) -> {}, CacheFreshness.ALWAYS)
+                , mock(UserEmailFilter.class)
+                , new SingleFlight<>(UserCache.USER_CACHE, meterRegistry)
+                , new SingleFlight<>(UserRangeCache.RANGE_CACHE, meterRegistry)
+                , TransactionOperations.withoutTransaction(), TransactionOperations.withoutTransaction());
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+    }
+}
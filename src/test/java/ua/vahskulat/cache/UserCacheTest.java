@@ -0,0 +1,58 @@
+package ua.vahskulat.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+    private CacheManager cacheManager;
+    private UserRepository userRepository;
+    private UserCache userCache;
+    private User first;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheManager = new CaffeineCacheManager(UserCache.USER_CACHE);
+        this.userRepository = mock(UserRepository.class);
+        this.userCache = new UserCache(cacheManager, userRepository, CacheFreshness.ALWAYS);
+
+        this.first = new User(1L, "example@gmail.com", "Serhii",
+                LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+        userCache.fill(first);
+    }
+
+    @Test
+    void testGetUsers_HitsFromUserCacheMissesWithOneQuery() {
+
+        User third = new User(3L, "example3@gmail.com", "Ivan",
+                LocalDate.of(1992, 2, 2), "Franko", null, null);
+        when(userRepository.findDetachedByIdIn(List.of(3L, 4L))).thenReturn(List.of(third));
+
+        Map<Long, User> users = userCache.getUsers(List.of(3L, 1L, 4L, 3L));
+
+        assertEquals(Map.of(1L, first, 3L, third), users);
+        assertEquals(third, cacheManager.getCache(UserCache.USER_CACHE).get(3L).get());
+        verify(userRepository, times(1)).findDetachedByIdIn(List.of(3L, 4L));
+    }
+
+    @Test
+    void testFill_UserAlreadyCached_KeepsCachedUser() {
+
+        User stale = new User(1L, "example@gmail.com", "Stale",
+                LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+
+        userCache.fill(stale);
+
+        assertEquals(first, cacheManager.getCache(UserCache.USER_CACHE).get(1L).get());
+    }
+}
@@ -0,0 +1,57 @@
+package ua.vahskulat.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ua.vahskulat.repository.UserRepository;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserEmailFilterTest {
+    private UserRepository userRepository;
+    private UserEmailFilter userEmailFilter;
+
+    @BeforeEach
+    void setUp() {
+        this.userRepository = mock(UserRepository.class);
+        this.userEmailFilter = new UserEmailFilter(userRepository, 10_000, 0.01);
+    }
+
+    @Test
+    void testMightContain_BeforeLoad_ReportsEveryEmailAsPossiblyTaken() {
+
+        assertFalse(userEmailFilter.isLoaded());
+        assertTrue(userEmailFilter.mightContain("free@gmail.com"));
+    }
+
+    @Test
+    void testLoad_KnownEmailsContainedUnknownMostlyRejected() {
+
+        when(userRepository.streamAllEmails())
+                .thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "user" + i + "@gmail.com"));
+
+        userEmailFilter.load();
+        userEmailFilter.put("new@gmail.com");
+
+        assertTrue(userEmailFilter.isLoaded());
+        assertTrue(IntStream.range(0, 10_000).allMatch(i -> userEmailFilter.mightContain("user" + i + "@gmail.com")));
+        assertTrue(userEmailFilter.mightContain("new@gmail.com"));
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> userEmailFilter.mightContain("other" + i + "@gmail.com"))
+                .count();
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testLoad_NoUsers_RejectsEverything() {
+
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+
+        userEmailFilter.load();
+
+        assertFalse(userEmailFilter.mightContain("free@gmail.com"));
+    }
+}
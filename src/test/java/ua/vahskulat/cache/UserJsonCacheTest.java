@@ -0,0 +1,47 @@
+package ua.vahskulat.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ua.vahskulat.config.UserCacheProperties;
+import ua.vahskulat.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJsonCacheTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private UserJsonCache userJsonCache(boolean enabled) {
+        return new UserJsonCache(new ConcurrentMapCacheManager(UserJsonCache.USER_JSON_CACHE), objectMapper
+                , new UserCacheProperties(Map.of(), new UserCacheProperties.Remote(false, "topic"), enabled));
+    }
+
+    private User user(String firstName, long version) {
+        User user = new User(1L, "example@gmail.com", firstName, LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+        user.setVersion(version);
+        return user;
+    }
+
+    @Test
+    void testGet_SameVersion_ReturnsEncodedJsonOnceAndNewVersion_EncodesAgain() {
+
+        UserJsonCache userJsonCache = userJsonCache(true);
+
+        byte[] first = userJsonCache.get(user("Serhii", 1));
+
+        assertSame(first, userJsonCache.get(user("Serhii", 1)));
+        assertTrue(new String(userJsonCache.get(user("updateFN", 2)), StandardCharsets.UTF_8)
+                .contains("\"firstName\":\"updateFN\""));
+    }
+
+    @Test
+    void testGet_Disabled_ReturnsNull() {
+
+        assertNull(userJsonCache(false).get(user("Serhii", 1)));
+    }
+}
@@ -0,0 +1,121 @@
+package ua.vahskulat.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserRangeCacheTest {
+    private final LocalDate from = LocalDate.of(1990, 1, 1);
+    private final LocalDate to = LocalDate.of(2000, 1, 1);
+    private final Pageable pageable = PageRequest.of(0, 10);
+    private CacheManager cacheManager;
+    private UserRepository userRepository;
+    private CacheInvalidationPublisher publisher;
+    private UserRangeCache userRangeCache;
+    private User first;
+    private User second;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheManager = new CaffeineCacheManager(UserCache.USER_CACHE, UserRangeCache.RANGE_CACHE);
+        this.userRepository = mock(UserRepository.class);
+        this.publisher = mock(CacheInvalidationPublisher.class);
+        this.userRangeCache = new UserRangeCache(cacheManager
+                , new UserCache(cacheManager, userRepository, CacheFreshness.ALWAYS), publisher, CacheFreshness.ALWAYS);
+
+        this.first = new User(1L, "example@gmail.com", "Serhii",
+                LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+        this.second = new User(2L, "example1@gmail.com", "Grisha",
+                LocalDate.of(1995, 5, 16), "Privet", null, null);
+
+        userRangeCache.put(from, to, pageable, new PageImpl<>(List.of(first, second), pageable, 2));
+    }
+
+    @Test
+    void testGet_CachedRange_ResolvesUsersFromUserCacheInOrder() {
+
+        Page<User> page = userRangeCache.get(from, to, pageable);
+
+        assertNotNull(page);
+        assertEquals(List.of(first, second), page.getContent());
+        assertEquals(2, page.getTotalElements());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testGetSlice_CachedApartFromPages() {
+
+        assertNull(userRangeCache.getSlice(from, to, pageable));
+
+        userRangeCache.putSlice(from, to, pageable, new SliceImpl<>(List.of(second), pageable, true));
+
+        Slice<User> slice = userRangeCache.getSlice(from, to, pageable);
+        assertEquals(List.of(second), slice.getContent());
+        assertTrue(slice.hasNext());
+        assertEquals(2, userRangeCache.get(from, to, pageable).getNumberOfElements());
+    }
+
+    @Test
+    void testGet_UserMissingInUserCache_LoadedWithOneQuery() {
+
+        cacheManager.getCache(UserCache.USER_CACHE).evict(2L);
+        when(userRepository.findDetachedByIdIn(List.of(2L))).thenReturn(List.of(second));
+
+        Page<User> page = userRangeCache.get(from, to, pageable);
+
+        assertEquals(List.of(first, second), page.getContent());
+        assertNotNull(cacheManager.getCache(UserCache.USER_CACHE).get(2L));
+        verify(userRepository, times(1)).findDetachedByIdIn(List.of(2L));
+    }
+
+    @Test
+    void testGet_UserDeleted_DropsRange() {
+
+        cacheManager.getCache(UserCache.USER_CACHE).evict(2L);
+        when(userRepository.findDetachedByIdIn(List.of(2L))).thenReturn(Collections.emptyList());
+
+        assertNull(userRangeCache.get(from, to, pageable));
+        assertNull(cacheManager.getCache(UserRangeCache.RANGE_CACHE).get(new UserRangeCache.RangeKey(from, to, 0, 10
+                , pageable.getSort(), true)));
+    }
+
+    @Test
+    void testEvictContaining_OnlyDropsRangesContainingBirthDate() {
+
+        LocalDate otherFrom = LocalDate.of(2001, 1, 1);
+        LocalDate otherTo = LocalDate.of(2005, 1, 1);
+        userRangeCache.put(otherFrom, otherTo, pageable, new PageImpl<>(Collections.emptyList(), pageable, 0));
+
+        userRangeCache.evictContaining(LocalDate.of(1993, 3, 3));
+
+        assertNull(userRangeCache.get(from, to, pageable));
+        assertNotNull(userRangeCache.get(otherFrom, otherTo, pageable));
+        verify(publisher, times(1)).publish(UserRangeCache.RANGE_CACHE, LocalDate.of(1993, 3, 3));
+    }
+
+    @Test
+    void testOnInvalidation_FromOtherNode_DropsMatchingRanges() {
+
+        userRangeCache.onInvalidation(new CacheInvalidationMessage("node-b", UserRangeCache.RANGE_CACHE
+                , LocalDate.of(2000, 1, 1)));
+
+        assertNull(userRangeCache.get(from, to, pageable));
+        verifyNoInteractions(publisher);
+    }
+}
@@ -1,33 +1,55 @@
 package ua.vahskulat.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import ua.vahskulat.cache.UserJsonCache;
 import ua.vahskulat.dto.request.UserCreateRequestDTO;
 import ua.vahskulat.dto.request.UserUpdateRequestDto;
+import ua.vahskulat.dto.response.UserImportResultDto;
+import ua.vahskulat.dto.response.UserResponseAPI;
 import ua.vahskulat.dto.response.UserResponseDto;
 import ua.vahskulat.exception.UserEmailExistException;
 import ua.vahskulat.exception.UserNotFoundException;
+import ua.vahskulat.exception.UserVersionMismatchException;
 import ua.vahskulat.exception.UserWrongAgeException;
 import ua.vahskulat.exception.UserWrongDateException;
+import ua.vahskulat.mapper.UserMapper;
+import ua.vahskulat.model.Address;
 import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.UserCursor;
 import ua.vahskulat.service.UserService;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -40,6 +62,8 @@ class UserControllerTest {
     private MockMvc mockMvc;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private CacheManager cacheManager;
     @MockBean
     private UserService userService;
     private User testUser;
@@ -81,6 +105,98 @@ class UserControllerTest {
 
     }
 
+    @Test
+    void createUser_BySmileBody_ReturnSmileUser201Created() throws Exception {
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        when(userService.createUser(any(User.class))).thenReturn(testUser);
+
+        byte[] body = mockMvc.perform(post("/api/v1/users")
+                        .content(smileMapper.writeValueAsBytes(new UserCreateRequestDTO("example@gmail.com", "Serhii"
+                                , "Shapoval", LocalDate.of(1991, 1, 13), null, null)))
+                        .contentType(smile)
+                        .accept(smile))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        UserResponseAPI<UserResponseDto> response = smileMapper.readValue(body, new TypeReference<>() {
+        });
+        assertEquals(userResponse, response.getData());
+        verify(userService).createUser(argThat(user -> "example@gmail.com".equals(user.getEmail())));
+    }
+
+    @Test
+    void createUsers_ByJsonArray_ReturnResultPerRow200Ok() throws Exception {
+
+        UserCreateRequestDTO valid = new UserCreateRequestDTO("example@gmail.com", "Serhii", "Shapoval",
+                LocalDate.of(1991, 1, 13), null, null);
+        UserCreateRequestDTO invalid = new UserCreateRequestDTO("", "Grisha", "Privet",
+                LocalDate.of(1996, 5, 16), null, null);
+
+        when(userService.createUsers(anyList()))
+                .thenReturn(List.of(UserImportResultDto.created(0, testUser)));
+
+        mockMvc.perform(post("/api/v1/users/bulk")
+                        .content(objectMapper.writeValueAsString(List.of(invalid, valid)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].index").value(0))
+                .andExpect(jsonPath("$.data.[0].error").value(" Validation error "))
+                .andExpect(jsonPath("$.data.[1].index").value(1))
+                .andExpect(jsonPath("$.data.[1].id").value(1))
+                .andExpect(jsonPath("$.countElements").value(1))
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        verify(userService, times(1)).createUsers(argThat(users -> users.size() == 1));
+    }
+
+    @Test
+    void createUsers_ByNdjsonStream_ReturnResultLinePerRow200Ok() throws Exception {
+
+        UserCreateRequestDTO valid = new UserCreateRequestDTO("example@gmail.com", "Serhii", "Shapoval",
+                LocalDate.of(1991, 1, 13), null, null);
+
+        when(userService.createUsers(anyList()))
+                .thenReturn(List.of(UserImportResultDto.created(0, testUser)));
+
+        String body = objectMapper.writeValueAsString(valid) + "\n{not json\n";
+        String response = mockMvc.perform(post("/api/v1/users/bulk")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(" Validation error ", objectMapper.readTree(lines[1]).get("error").asText());
+    }
+
+    @Test
+    void createUser_ByEmailUniqueViolation_ReturnErrorResponseBadRequest409() throws Exception {
+
+        UserCreateRequestDTO duplicate = new UserCreateRequestDTO("example@gmail.com", "Grisha", "Privet",
+                LocalDate.of(1996, 5, 16), null, null);
+
+        when(userService.createUser(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement"
+                        , new ConstraintViolationException("duplicate key", new SQLException("23505")
+                        , "users_email_key")));
+
+        mockMvc.perform(post("/api/v1/users")
+                        .content(objectMapper.writeValueAsString(duplicate))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(" User email exist "))
+                .andExpect(jsonPath("$.path").value("/api/v1/users"));
+    }
+
     @Test
     void createUser_ByExistEmail_ReturnErrorResponseBadRequest409() throws Exception {
 
@@ -178,7 +294,7 @@ class UserControllerTest {
                 LocalDate.of(1991, 1, 13), "updateLN", null, null);
         UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
 
-        when(userService.updateUserNames(id, updatedUser.firstName(), updatedUser.lastName()))
+        when(userService.updateUserNames(id, updatedUser.firstName(), updatedUser.lastName(), null))
                 .thenReturn(user);
 
         mockMvc.perform(patch("/api/v1/users/{id}", id)
@@ -191,7 +307,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.firstName").value(updatedUser.firstName()))
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id));
         verify(userService, times(1))
-                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName());
+                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName(), null);
 
 
     }
@@ -200,7 +316,7 @@ class UserControllerTest {
 
         Long id = -1L;
         UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
-        when(userService.updateUserNames(id,updatedUser.firstName(),updatedUser.lastName()))
+        when(userService.updateUserNames(id,updatedUser.firstName(),updatedUser.lastName(), null))
                 .thenThrow(new IllegalArgumentException("User ID must be greater than 0"));
 
         mockMvc.perform(patch("/api/v1/users/{id}",id)
@@ -213,7 +329,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id ));
 
         verify(userService, never())
-                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName());
+                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName(), null);
 
     }
     @Test
@@ -222,7 +338,7 @@ class UserControllerTest {
         Long id = 100L;
         UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
 
-        when(userService.updateUserNames(id,updatedUser.firstName(),updatedUser.lastName()))
+        when(userService.updateUserNames(id,updatedUser.firstName(),updatedUser.lastName(), null))
                 .thenThrow(new UserNotFoundException(" User with this " + id + " not found "));
 
         mockMvc.perform(patch("/api/v1/users/{id}",id)
@@ -236,7 +352,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id ));
 
         verify(userService, times(1))
-                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName());
+                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName(), null);
 
     }
     @Test
@@ -255,7 +371,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id ));
 
         verify(userService, never())
-                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName());
+                .updateUserNames(id,updatedUser.firstName(),updatedUser.lastName(), null);
 
     }
     @Test
@@ -267,7 +383,7 @@ class UserControllerTest {
         UserCreateRequestDTO requestDTO = new UserCreateRequestDTO("exampl1e@gmail.com", "Serega",
                  "Vashkulat", LocalDate.of(1991, 11, 15),null, "123-123-123");
 
-        when(userService.updateUser(eq(id),any(User.class))).thenReturn(updatedUser);
+        when(userService.updateUser(eq(id),any(User.class),isNull())).thenReturn(updatedUser);
 
         mockMvc.perform(put("/api/v1/users/{id}", id)
                         .content(objectMapper.writeValueAsString(requestDTO))
@@ -277,7 +393,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.firstName").value("Serega"))
                 .andExpect(jsonPath("$.data.lastName").value("Vashkulat"))
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id));
-        verify(userService,times(1)).updateUser(eq(id),any(User.class));
+        verify(userService,times(1)).updateUser(eq(id),any(User.class),isNull());
 
     }
     @Test
@@ -286,7 +402,7 @@ class UserControllerTest {
         UserCreateRequestDTO requestDTO = new UserCreateRequestDTO("exampl1e@gmail.com", "Serega",
                 "Vashkulat", LocalDate.of(1991, 11, 15),null, "123-123-123");
 
-        when(userService.updateUser(eq(id),any(User.class)))
+        when(userService.updateUser(eq(id),any(User.class),isNull()))
                 .thenThrow(new UserEmailExistException(" This email " + requestDTO.email() + " is busy "));
 
         mockMvc.perform(put("/api/v1/users/{id}", id)
@@ -298,7 +414,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.detail").value(" This email " + requestDTO.email() + " is busy "))
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id));
         verify(userService,times(1)).updateUser(eq(id),argThat(user ->
-                "exampl1e@gmail.com".equals(requestDTO.email())));
+                "exampl1e@gmail.com".equals(requestDTO.email())),isNull());
     }
     @Test
     void updateAllFieldsUser_ByInvalidEmail_ReturnUserErrorResponseBadRequest400() throws Exception {
@@ -313,8 +429,209 @@ class UserControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.error").value(" Validation error "))
                 .andExpect(jsonPath("$.path").value("/api/v1/users/" + id));
-        verify(userService,never()).updateUser(any(Long.class),any(User.class));
+        verify(userService,never()).updateUser(any(Long.class),any(User.class),any());
+    }
+    @Test
+    void userById_ReturnUserWithETagOk200() throws Exception {
+
+        testUser.setVersion(3L);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        mockMvc.perform(get("/api/v1/users/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.data.email").value("example@gmail.com"));
+    }
+
+    @Test
+    void userById_FromJsonCache_ReturnSameBodyAsSerializedResponse() throws Exception {
+
+        User user = new User(7L, "cached@gmail.com", "Serhii", LocalDate.of(1991, 1, 13), "Shapoval"
+                , new Address("Ukraine", "Kyiv", "Khreshchatyk", "22", "15", "01001"), "+380501234567");
+        user.setVersion(5L);
+        when(userService.getUserById(7L)).thenReturn(user);
+        String serialized = objectMapper.writeValueAsString(UserResponseAPI.<UserResponseDto>builder()
+                .data(UserMapper.mapper.toDTO(user))
+                .path("/api/v1/users/7")
+                .build());
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/v1/users/{id}", 7L))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().longValue("Content-Length", serialized.length()))
+                    .andExpect(content().string(serialized));
+        }
+    }
+
+    @Test
+    void userById_ByAcceptCbor_ReturnCborVaryingByAcceptOk200() throws Exception {
+
+        testUser.setVersion(3L);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        byte[] body = mockMvc.perform(get("/api/v1/users/{id}", 1L)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"3-cbor\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = Jackson2ObjectMapperBuilder.cbor().build().readTree(body);
+        assertEquals("example@gmail.com", response.get("data").get("email").asText());
+        assertEquals("1991-01-13", response.get("data").get("birthDate").asText());
+        assertEquals("/api/v1/users/1", response.get("path").asText());
+    }
+
+    @Test
+    void userById_ByAcceptSmileOrCbor_LeavesJsonCacheAlone() throws Exception {
+
+        User user = new User(8L, "binary@gmail.com", "Serhii", LocalDate.of(1991, 1, 13), "Shapoval"
+                , null, null);
+        user.setVersion(2L);
+        when(userService.getUserById(8L)).thenReturn(user);
+
+        for (MediaType mediaType : List.of(new MediaType("application", "x-jackson-smile")
+                , MediaType.APPLICATION_CBOR)) {
+            mockMvc.perform(get("/api/v1/users/{id}", 8L)
+                            .accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(mediaType));
+        }
+
+        assertNull(cacheManager.getCache(UserJsonCache.USER_JSON_CACHE).get(8L));
+    }
+
+    @Test
+    void userById_ByMatchingIfNoneMatch_ReturnNotModified304() throws Exception {
+
+        testUser.setVersion(3L);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        mockMvc.perform(get("/api/v1/users/{id}", 1L)
+                        .header("If-None-Match", "W/\"2\", \"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void userById_ByIfNoneMatchOfSameEncoding_ReturnNotModified304() throws Exception {
+
+        testUser.setVersion(3L);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        mockMvc.perform(get("/api/v1/users/{id}", 1L)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3-cbor\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void userById_ByIfNoneMatchOfOtherEncoding_ReturnUserOk200() throws Exception {
+
+        testUser.setVersion(3L);
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        mockMvc.perform(get("/api/v1/users/{id}", 1L)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.data.email").value("example@gmail.com"));
+    }
+
+    @Test
+    void updateAllFieldsUser_ByStaleIfMatch_ReturnUserErrorResponsePreconditionFailed412() throws Exception {
+        Long id = 1L;
+        UserCreateRequestDTO requestDTO = new UserCreateRequestDTO("exampl1e@gmail.com", "Serega",
+                "Vashkulat", LocalDate.of(1991, 11, 15),null, "123-123-123");
+
+        when(userService.updateUser(eq(id),any(User.class),eq(Set.of(2L))))
+                .thenThrow(new UserVersionMismatchException(" User 1 was modified, current version is 3 "));
+
+        mockMvc.perform(put("/api/v1/users/{id}", id)
+                        .header("If-Match", "\"2\"")
+                        .content(objectMapper.writeValueAsString(requestDTO))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value(" User modified "))
+                .andExpect(jsonPath("$.path").value("/api/v1/users/" + id));
+    }
+
+    @Test
+    void updateUserNames_ByIfMatch_ReturnNewETagOk200() throws Exception {
+        Long id = 1L;
+        User user = new User(1L, "example@gmail.com", "updateFN",
+                LocalDate.of(1991, 1, 13), "updateLN", null, null, 4L);
+        UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
+
+        when(userService.updateUserNames(id, updatedUser.firstName(), updatedUser.lastName(), Set.of(3L)))
+                .thenReturn(user);
+
+        mockMvc.perform(patch("/api/v1/users/{id}", id)
+                        .header("If-Match", "\"3\"")
+                        .content(objectMapper.writeValueAsString(updatedUser))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateUserNames_ByIfMatchOfOtherEncoding_ReturnNewETagOk200() throws Exception {
+        Long id = 1L;
+        User user = new User(1L, "example@gmail.com", "updateFN",
+                LocalDate.of(1991, 1, 13), "updateLN", null, null, 4L);
+        UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
+
+        when(userService.updateUserNames(id, updatedUser.firstName(), updatedUser.lastName(), Set.of(3L)))
+                .thenReturn(user);
+
+        mockMvc.perform(patch("/api/v1/users/{id}", id)
+                        .header("If-Match", "\"3-cbor\"")
+                        .content(objectMapper.writeValueAsString(updatedUser))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateUserNames_ByIfMatchList_ReturnNewETagOk200() throws Exception {
+        Long id = 1L;
+        User user = new User(1L, "example@gmail.com", "updateFN",
+                LocalDate.of(1991, 1, 13), "updateLN", null, null, 4L);
+        UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
+
+        when(userService.updateUserNames(id, updatedUser.firstName(), updatedUser.lastName(), Set.of(2L, 3L)))
+                .thenReturn(user);
+
+        mockMvc.perform(patch("/api/v1/users/{id}", id)
+                        .header("If-Match", "\"2\", W/\"1\", \"3-smile\"")
+                        .content(objectMapper.writeValueAsString(updatedUser))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateUserNames_ByConcurrentUpdate_ReturnUserErrorResponseConflict409() throws Exception {
+        Long id = 1L;
+        UserUpdateRequestDto updatedUser = new UserUpdateRequestDto("updateFN", "updateLN");
+
+        when(userService.updateUserNames(id, updatedUser.firstName(), updatedUser.lastName(), null))
+                .thenThrow(new ObjectOptimisticLockingFailureException(User.class, id));
+
+        mockMvc.perform(patch("/api/v1/users/{id}", id)
+                        .content(objectMapper.writeValueAsString(updatedUser))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(" User modified "));
     }
+
     @Test
     void deleteUser_ReturnNoContent204() throws Exception {
 
@@ -361,6 +678,68 @@ class UserControllerTest {
         verify(userService,times(1))
                 .getUsersByBirthDateRange(from,to,pageable);
 
+    }
+    @Test
+    void searchUsersByDateRange_WithoutCount_ReturnHasNextWithoutTotalOk200() throws Exception {
+        Pageable pageable = PageRequest.of(0,10);
+        LocalDate from = LocalDate.of(1990,1,1);
+        LocalDate to = LocalDate.of(2023,9,30);
+        Slice<User> sliceUser = new SliceImpl<>(Collections.singletonList(testUser), pageable, true);
+        when(userService.getUserSliceByBirthDateRange(from,to, pageable))
+                .thenReturn(sliceUser);
+
+        mockMvc.perform(get("/api/v1/users")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString())
+                        .param("count", "NONE")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].email").value("example@gmail.com"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.estimatedTotalElements").doesNotExist());
+        verify(userService,never())
+                .getUsersByBirthDateRange(any(LocalDate.class),any(LocalDate.class),any(Pageable.class));
+        verify(userService,never())
+                .estimateUsersByBirthDateRange(any(LocalDate.class),any(LocalDate.class));
+
+    }
+    @Test
+    void searchUsersByDateRange_WithEstimatedCount_ReturnEstimatedTotalOk200() throws Exception {
+        Pageable pageable = PageRequest.of(0,10);
+        LocalDate from = LocalDate.of(1990,1,1);
+        LocalDate to = LocalDate.of(2023,9,30);
+        Slice<User> sliceUser = new SliceImpl<>(Collections.singletonList(testUser), pageable, false);
+        when(userService.getUserSliceByBirthDateRange(from,to, pageable))
+                .thenReturn(sliceUser);
+        when(userService.estimateUsersByBirthDateRange(from,to))
+                .thenReturn(1200L);
+
+        mockMvc.perform(get("/api/v1/users")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString())
+                        .param("count", "ESTIMATED")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.estimatedTotalElements").value(1200))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+    }
+    @Test
+    void searchUsersByDateRange_ByUnknownCount_ReturnUserErrorResponseBadRequest400() throws Exception {
+
+        mockMvc.perform(get("/api/v1/users")
+                        .param("fromDate", "1990-01-01")
+                        .param("toDate", "2023-09-30")
+                        .param("count", "ALL")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid query parameter"))
+                .andExpect(jsonPath("$.path").value("/api/v1/users"));
+
     }
     @Test
     void searchUsersByDateRange_ByWrongDate_ReturnUserErrorResponseBadRequest400() throws Exception {
@@ -398,5 +777,152 @@ class UserControllerTest {
                 .getUsersByBirthDateRange(any(LocalDate.class),any(LocalDate.class),any(Pageable.class) );
 
     }
+    @Test
+    void scrollUsersByDateRange_ReturnNextCursorOk200() throws Exception {
+        LocalDate from = LocalDate.of(1990,1,1);
+        LocalDate to = LocalDate.of(2023,9,30);
+        Slice<User> sliceUser = new SliceImpl<>(Collections.singletonList(testUser), PageRequest.ofSize(1), true);
+        when(userService.getUsersByBirthDateRangeAfter(from, to, null, 1))
+                .thenReturn(sliceUser);
+
+        mockMvc.perform(get("/api/v1/users/scroll")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString())
+                        .param("size", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].email").value("example@gmail.com"))
+                .andExpect(jsonPath("$.nextCursor").value(UserCursor.of(testUser).encode()))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        verify(userService,times(1))
+                .getUsersByBirthDateRangeAfter(from, to, null, 1);
+
+    }
+    @Test
+    void scrollUsersByDateRange_ByCursor_ReturnLastPageWithoutCursorOk200() throws Exception {
+        LocalDate from = LocalDate.of(1990,1,1);
+        LocalDate to = LocalDate.of(2023,9,30);
+        UserCursor cursor = new UserCursor(LocalDate.of(1990,5,5), 7L);
+        Slice<User> sliceUser = new SliceImpl<>(Collections.singletonList(testUser), PageRequest.ofSize(10), false);
+        when(userService.getUsersByBirthDateRangeAfter(from, to, cursor, 10))
+                .thenReturn(sliceUser);
+
+        mockMvc.perform(get("/api/v1/users/scroll")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString())
+                        .param("cursor", cursor.encode())
+                        .param("size", "10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].email").value("example@gmail.com"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+    }
+    @Test
+    void scrollUsersByDateRange_ByInvalidCursor_ReturnUserErrorResponseBadRequest400() throws Exception {
+
+        mockMvc.perform(get("/api/v1/users/scroll")
+                        .param("fromDate", "1990-01-01")
+                        .param("toDate", "2023-09-30")
+                        .param("cursor", "not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid query parameter"))
+                .andExpect(jsonPath("$.path").value("/api/v1/users/scroll"));
+        verify(userService,never())
+                .getUsersByBirthDateRangeAfter(any(LocalDate.class),any(LocalDate.class),any(UserCursor.class),anyInt());
+
+    }
+
+    @Test
+    void exportUsersByDateRange_AsNdjson_ReturnLinePerUserOk200() throws Exception {
+        LocalDate from = LocalDate.of(1990,1,1);
+        LocalDate to = LocalDate.of(2023,9,30);
+        doAnswer(invocation -> {
+            Consumer<UserResponseDto> consumer = invocation.getArgument(2);
+            consumer.accept(userResponse);
+            consumer.accept(userResponse);
+            return null;
+        }).when(userService).exportUsersByBirthDateRange(eq(from), eq(to), any());
+
+        String response = mockMvc.perform(get("/api/v1/users/export")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("example@gmail.com", objectMapper.readTree(lines[1]).get("email").asText());
+    }
+    @Test
+    void exportUsersByDateRange_AsCsv_ReturnHeaderAndRowsOk200() throws Exception {
+        LocalDate from = LocalDate.of(1990,1,1);
+        LocalDate to = LocalDate.of(2023,9,30);
+        UserResponseDto quoted = new UserResponseDto("quoted@gmail.com", "Serhii, Jr", "Shapoval",
+                LocalDate.of(1991, 1, 13), null, null);
+        doAnswer(invocation -> {
+            Consumer<UserResponseDto> consumer = invocation.getArgument(2);
+            consumer.accept(quoted);
+            return null;
+        }).when(userService).exportUsersByBirthDateRange(eq(from), eq(to), any());
+
+        String response = mockMvc.perform(get("/api/v1/users/export")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString())
+                        .param("format", "CSV"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("quoted@gmail.com,\"Serhii, Jr\",Shapoval,1991-01-13,,,,,,,", lines[1]);
+    }
+    @Test
+    void exportUsersByDateRange_ByWrongDateRange_ReturnUserErrorResponseBadRequest400() throws Exception {
+        LocalDate from = LocalDate.of(2023,9,30);
+        LocalDate to = LocalDate.of(1990,1,1);
+        doThrow(new UserWrongDateException(" From date must be before To date "))
+                .when(userService).exportUsersByBirthDateRange(eq(from), eq(to), any());
+
+        mockMvc.perform(get("/api/v1/users/export")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.path").value("/api/v1/users/export"));
+    }
+
+    @Test
+    void usersByIds_ReturnResultsInRequestOrderWithNotFoundOk200() throws Exception {
+        when(userService.getUsersByIds(List.of(7L, 1L)))
+                .thenReturn(Arrays.asList(null, testUser));
+
+        mockMvc.perform(post("/api/v1/users/batch-get")
+                        .content("{\"ids\":[7,1]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].id").value(7))
+                .andExpect(jsonPath("$.data.[0].error").value(" User not found "))
+                .andExpect(jsonPath("$.data.[0].user").doesNotExist())
+                .andExpect(jsonPath("$.data.[1].id").value(1))
+                .andExpect(jsonPath("$.data.[1].user.email").value("example@gmail.com"))
+                .andExpect(jsonPath("$.countElements").value(1))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+    @Test
+    void usersByIds_ByEmptyIds_ReturnUserErrorResponseBadRequest400() throws Exception {
+
+        mockMvc.perform(post("/api/v1/users/batch-get")
+                        .content("{\"ids\":[]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(" Validation error "));
+        verify(userService, never()).getUsersByIds(anyList());
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package ua.vahskulat.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ua.vahskulat.exception.UserNotFoundException;
+import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.UserCursor;
+import ua.vahskulat.service.UserService;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "user.reactive.stream-page-size=2")
+@AutoConfigureMockMvc
+class UserReactiveControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockBean
+    private UserService userService;
+    private User testUser;
+    private final LocalDate from = LocalDate.of(1990, 1, 1);
+    private final LocalDate to = LocalDate.of(2023, 9, 30);
+
+    @BeforeEach
+    void setUp() {
+        this.testUser = user(1L, "example@gmail.com");
+    }
+
+    @Test
+    void userById_ReturnUserOk200() throws Exception {
+        when(userService.getUserById(1L)).thenReturn(testUser);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/reactive/users/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.email").value("example@gmail.com"))
+                .andExpect(jsonPath("$.path").value("/api/v1/reactive/users/1"));
+    }
+
+    @Test
+    void userById_ByUnknownId_ReturnUserErrorResponseNotFound404() throws Exception {
+        when(userService.getUserById(5L)).thenThrow(new UserNotFoundException(" User with this 5 not found "));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/reactive/users/{id}", 5L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value(" User not found "))
+                .andExpect(jsonPath("$.path").value("/api/v1/reactive/users/5"));
+    }
+
+    @Test
+    void searchUsersByDateRange_ReturnUserResponseAPIOk200() throws Exception {
+        when(userService.getUsersByBirthDateRange(from, to, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(testUser)));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/reactive/users")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].email").value("example@gmail.com"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    void streamUsersByDateRange_ReadsKeysetPages_ReturnLinePerUserOk200() throws Exception {
+        User second = user(2L, "second@gmail.com");
+        User third = user(3L, "third@gmail.com");
+        when(userService.getUsersByBirthDateRangeAfter(from, to, null, 2))
+                .thenReturn(new SliceImpl<>(List.of(testUser, second), PageRequest.ofSize(2), true));
+        when(userService.getUsersByBirthDateRangeAfter(from, to, UserCursor.of(second), 2))
+                .thenReturn(new SliceImpl<>(List.of(third), PageRequest.ofSize(2), false));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/reactive/users/stream")
+                        .param("fromDate", from.toString())
+                        .param("toDate", to.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = response.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("third@gmail.com", objectMapper.readTree(lines[2]).get("email").asText());
+        verify(userService, times(2)).getUsersByBirthDateRangeAfter(eq(from), eq(to), any(), anyInt());
+    }
+
+    @Test
+    void streamUsersByDateRange_ByWrongDate_ReturnUserErrorResponseBadRequest400() throws Exception {
+        mockMvc.perform(get("/api/v1/reactive/users/stream")
+                        .param("fromDate", to.toString())
+                        .param("toDate", from.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(" Wrong date "));
+
+        verifyNoInteractions(userService);
+    }
+
+    private static User user(Long id, String email) {
+        return new User(id, email, "Serhii", LocalDate.of(1991, 1, 13), "Shapoval", null, null);
+    }
+}
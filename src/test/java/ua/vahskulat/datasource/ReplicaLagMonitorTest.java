@@ -0,0 +1,65 @@
+package ua.vahskulat.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaLagMonitorTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+    @TempDir
+    private Path dataDirectory;
+
+    @Test
+    void check_NotInRecovery_Usable() throws IOException {
+        try (EmbeddedPostgres postgres = start()) {
+            ReplicaLagMonitor monitor = monitor(postgres);
+
+            monitor.check();
+
+            assertTrue(monitor.isReplicaUsable());
+            assertTrue(monitor.replayedThroughMillis() > 0);
+        }
+    }
+
+    /**
+     * A standby whose WAL receiver is gone has replayed all it received, which would read as no lag.
+     */
+    @Test
+    void check_StandbyWithoutWalReceiver_NotUsable() throws IOException {
+        start().close();
+        Files.createFile(dataDirectory.resolve("standby.signal"));
+
+        try (EmbeddedPostgres standby = start()) {
+            ReplicaLagMonitor monitor = monitor(standby);
+            assertEquals(Boolean.TRUE, new JdbcTemplate(standby.getPostgresDatabase())
+                    .queryForObject("select pg_is_in_recovery()", Boolean.class));
+
+            monitor.check();
+
+            assertFalse(monitor.isReplicaUsable());
+            assertEquals(0, monitor.replayedThroughMillis());
+        }
+    }
+
+    private EmbeddedPostgres start() throws IOException {
+        return EmbeddedPostgres.builder()
+                .setDataDirectory(dataDirectory)
+                .setCleanDataDirectory(false)
+                .start();
+    }
+
+    private static ReplicaLagMonitor monitor(EmbeddedPostgres postgres) {
+        return new ReplicaLagMonitor(postgres.getPostgresDatabase(), MAX_LAG, Duration.ofSeconds(1)
+                , new SimpleMeterRegistry());
+    }
+}
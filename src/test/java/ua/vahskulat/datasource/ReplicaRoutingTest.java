@@ -0,0 +1,228 @@
+package ua.vahskulat.datasource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.model.User;
+import ua.vahskulat.service.UserService;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two embedded PostgreSQL instances stand for the primary and the replica, both migrated and then told apart
+ * by the first name of user 1. The replica reports no lag and is only checked when a test says so, the
+ * replay of a write is a test updating the replica and checking it.
+ */
+@SpringBootTest(properties = {
+        "user.datasource.replica.enabled=true",
+        "user.datasource.replica.lag-check-interval=1h",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=5000"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+    private static final String UPDATE_USER_3 =
+            "update users set first_name = 'Updated', version = version + 1 where id = 3";
+    private static final String SCROLL_FIRST_USER = "/api/v1/users/scroll?fromDate=1990-01-01&toDate=1990-01-01&size=1";
+    private static final EmbeddedPostgres primary = start();
+    private static final EmbeddedPostgres replica = start();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private UserService userService;
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasources(DynamicPropertyRegistry registry) {
+        // V2 builds its index concurrently, as for spring.flyway the migration must not run under a transactional lock
+        Flyway.configure()
+                .dataSource(replica.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        new JdbcTemplate(replica.getPostgresDatabase()).update("update users set first_name = 'Replica' where id = 1");
+
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("user.datasource.replica.url", () -> replica.getJdbcUrl("postgres", "postgres"));
+        registry.add("user.datasource.replica.username", () -> "postgres");
+        registry.add("user.datasource.replica.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        primary.close();
+        replica.close();
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // emptied underneath, as nothing has been written
+        cacheManager.getCacheNames().forEach(name -> ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager
+                .getCache(name).getNativeCache()).invalidateAll());
+        for (int i = 0; i < 100 && !replicaLagMonitor.isReplicaUsable(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    void scroll_ReadOnly_ReadsReplica() throws Exception {
+        mockMvc.perform(get(SCROLL_FIRST_USER))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].firstName").value("Replica"));
+    }
+
+    @Test
+    void scroll_AfterRecentWrite_ReadsPrimary() throws Exception {
+        mockMvc.perform(get(SCROLL_FIRST_USER)
+                        .header(ReadYourWrites.HEADER, System.currentTimeMillis()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].firstName").value("John"));
+    }
+
+    @Test
+    void scroll_AfterOldWrite_ReadsReplica() throws Exception {
+        mockMvc.perform(get(SCROLL_FIRST_USER)
+                        .header(ReadYourWrites.HEADER, System.currentTimeMillis() - 60_000))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].firstName").value("Replica"));
+    }
+
+    @Test
+    void userById_FillingCache_ReadsReplica() throws Exception {
+        mockMvc.perform(get("/api/v1/users/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.firstName").value("Replica"));
+
+        assertNotNull(cacheManager.getCache(UserCache.USER_CACHE).get(1L));
+    }
+
+    /**
+     * A user updated on another node, which dropped it here, is read from the replica before the replica has
+     * replayed the update: served, as any read from the replica, but not cached until the replica has caught up.
+     */
+    @Test
+    void cacheFills_WriteNotReplayed_NotCached() throws Exception {
+        new JdbcTemplate(primary.getPostgresDatabase()).update(UPDATE_USER_3);
+        cacheManager.getCache(UserCache.USER_CACHE).evict(3L);
+
+        mockMvc.perform(get("/api/v1/users/{id}", 3L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.firstName").value("Alice"));
+        assertEquals("Alice", userService.getUsersByIds(List.of(3L)).get(0).getFirstName());
+        assertEquals("Alice", userService.getUsersByBirthDateRange(LocalDate.of(1988, 3, 20)
+                , LocalDate.of(1988, 3, 20), PageRequest.of(0, 10)).getContent().get(0).getFirstName());
+        assertNull(cacheManager.getCache(UserCache.USER_CACHE).get(3L));
+
+        new JdbcTemplate(replica.getPostgresDatabase()).update(UPDATE_USER_3);
+        replicaLagMonitor.check();
+
+        mockMvc.perform(get("/api/v1/users/{id}", 3L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.firstName").value("Updated"));
+        assertEquals("Updated", cacheManager.getCache(UserCache.USER_CACHE).get(3L, User.class).getFirstName());
+    }
+
+    @Test
+    void updateUserNames_WritesPrimary_ReturnsLastWrite() throws Exception {
+        mockMvc.perform(patch("/api/v1/users/{id}", 2L)
+                        .content("{\"firstName\": \"Written\", \"lastName\": \"Primary\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ReadYourWrites.HEADER));
+
+        String firstNameSql = "select first_name from users where id = 2";
+        assertEquals("Written", new JdbcTemplate(primary.getPostgresDatabase()).queryForObject(firstNameSql, String.class));
+        assertEquals("Jane", new JdbcTemplate(replica.getPostgresDatabase()).queryForObject(firstNameSql, String.class));
+    }
+
+    @Test
+    void createUser_MoreWritersThanConnections_Completes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<User>> created = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String email = "writer" + i + "@example.com";
+            created.add(executor.submit(() -> userService.createUser(User.builder()
+                    .email(email)
+                    .firstName("Writer")
+                    .lastName("Primary")
+                    .birthDate(LocalDate.of(1990, 1, 1))
+                    .build())));
+        }
+        for (Future<User> user : created) {
+            assertNotNull(user.get(30, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void readOnly_ReplicaBehind_ReadsPrimary() {
+        ReplicaLagMonitor lagging = new ReplicaLagMonitor(replica.getPostgresDatabase(), Duration.ofSeconds(-1)
+                , Duration.ofSeconds(1), new SimpleMeterRegistry());
+        lagging.check();
+        DataSource dataSource = new ReplicaRoutingDataSource(primary.getPostgresDatabase()
+                , replica.getPostgresDatabase(), lagging);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(new ReplicaTransactionListener());
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String firstName = readOnly.execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("select first_name from users where id = 1", String.class));
+
+        assertFalse(lagging.isReplicaUsable());
+        assertEquals("John", firstName);
+    }
+}
@@ -0,0 +1,210 @@
+package ua.vahskulat.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ua.vahskulat.cache.RefreshAheadCache;
+import ua.vahskulat.exception.UserNotFoundException;
+import ua.vahskulat.model.User;
+import ua.vahskulat.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class UserServiceCacheTest {
+    private static final int STAMPEDE_THREADS = 32;
+
+    @MockBean
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        this.user = new User(1L, "example@gmail.com", "Serhii",
+                LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+    }
+
+    @Test
+    void testGetUserById_SecondCall_ServedFromCache() {
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        userService.getUserById(1L);
+        User cached = userService.getUserById(1L);
+
+        assertEquals(user.getEmail(), cached.getEmail());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testUpdateUserNames_PutsUpdatedUserIntoCache() {
+
+        User updated = new User(1L, "example@gmail.com", "updateFN",
+                LocalDate.of(1991, 1, 13), "updateLN", null, null);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(updated);
+
+        userService.getUserById(1L);
+        userService.updateUserNames(1L, "updateFN", "updateLN", null);
+
+        assertEquals("updateFN", userService.getUserById(1L).getFirstName());
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testDeleteUser_EvictsUserFromCache() {
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        userService.getUserById(1L);
+        userService.deleteUser(1L);
+
+        assertNull(cacheManager.getCache("user-cache").get(1L));
+    }
+
+    @Test
+    void testGetUserById_UnknownId_AnsweredFromCacheUntilUserIsCreated() {
+
+        User created = new User(2L, "created@gmail.com", "Serhii",
+                LocalDate.of(1991, 1, 13), "Vashkulat", null, null);
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.getUserById(2L));
+        UserNotFoundException notFound = assertThrows(UserNotFoundException.class, () -> userService.getUserById(2L));
+        verify(userRepository, times(1)).findById(2L);
+        assertEquals(0, notFound.getStackTrace().length);
+
+        when(userRepository.save(any(User.class))).thenReturn(created);
+        userService.createUser(created);
+        cacheManager.getCache("user-cache").evict(2L);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(created));
+
+        assertEquals(created.getEmail(), userService.getUserById(2L).getEmail());
+    }
+
+    @Test
+    void testUserCache_IsBoundedAndRecordsStats() {
+
+        Cache cache = cacheManager.getCache("user-cache");
+
+        assertInstanceOf(CaffeineCache.class, cache);
+        var nativeCache = ((CaffeineCache) cache).getNativeCache();
+        assertTrue(nativeCache.policy().eviction().isPresent());
+        assertTrue(nativeCache.policy().expireAfterWrite().isPresent());
+        assertTrue(nativeCache.policy().isRecordingStats());
+        assertInstanceOf(RefreshAheadCache.class, cache);
+    }
+
+    @Test
+    void testGetUserById_RecordsServiceTimerAndCacheMeters() {
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        double hits = meterRegistry.get("cache.gets").tag("cache", "user-cache").tag("result", "hit")
+                .functionCounter().count();
+        userService.getUserById(1L);
+        Timer timer = meterRegistry.get("user.service").tag("method", "getUserById").timer();
+        long calls = timer.count();
+
+        userService.getUserById(1L);
+
+        assertEquals(calls + 1, timer.count());
+        assertEquals(hits + 1, meterRegistry.get("cache.gets").tag("cache", "user-cache").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testGetUserById_StampedeOfMisses_LoadsOnce() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(user);
+        });
+
+        List<User> users = stampede("user-cache", release, () -> userService.getUserById(1L));
+
+        assertTrue(users.stream().allMatch(loaded -> user.getEmail().equals(loaded.getEmail())));
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testGetUsersByBirthDateRange_StampedeOfMisses_QueriesOnce() throws Exception {
+
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(1992, 1, 1);
+        Pageable pageable = PageRequest.of(0, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findUsersByBirthDateBetween(from, to, pageable)).thenAnswer(invocation -> {
+            release.await();
+            return new PageImpl<>(List.of(user), pageable, 1);
+        });
+
+        stampede("user-range-cache", release, () -> userService.getUsersByBirthDateRange(from, to, pageable));
+
+        verify(userRepository, times(1)).findUsersByBirthDateBetween(from, to, pageable);
+    }
+
+    /**
+     * Calls {@code call} from {@code THREADS} threads at once and releases the load only when all but the
+     * first caller are waiting for it.
+     */
+    private <T> List<T> stampede(String cache, CountDownLatch release, Supplier<T> call) throws Exception {
+        double coalesced = coalescedLoads(cache);
+        ExecutorService executor = Executors.newFixedThreadPool(STAMPEDE_THREADS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < STAMPEDE_THREADS; i++) {
+                futures.add(executor.submit(call::get));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalescedLoads(cache) < coalesced + STAMPEDE_THREADS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(coalesced + STAMPEDE_THREADS - 1, coalescedLoads(cache));
+            release.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private double coalescedLoads(String cache) {
+        return meterRegistry.get("user.cache.loads").tag("cache", cache).tag("result", "coalesced").counter().count();
+    }
+}
@@ -1,25 +1,47 @@
 package ua.vahskulat.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.data.domain.SliceImpl;
+import ua.vahskulat.cache.MissingUserCache;
+import ua.vahskulat.cache.SingleFlight;
+import ua.vahskulat.cache.UserCache;
+import ua.vahskulat.cache.UserEmailFilter;
+import ua.vahskulat.cache.UserRangeCache;
+import ua.vahskulat.dto.response.ErrorTitle;
 import ua.vahskulat.exception.UserEmailExistException;
 import ua.vahskulat.exception.UserNotFoundException;
+import ua.vahskulat.exception.UserVersionMismatchException;
 import ua.vahskulat.exception.UserWrongAgeException;
 import ua.vahskulat.exception.UserWrongDateException;
 import ua.vahskulat.model.Address;
 import ua.vahskulat.model.User;
+import ua.vahskulat.pagination.UserCursor;
 import ua.vahskulat.repository.UserRepository;
 import ua.vahskulat.service.impl.UserServiceImpl;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +50,23 @@ import static org.mockito.Mockito.*;
 class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserCache userCache;
+    @Mock
+    private UserRangeCache userRangeCache;
+    @Mock
+    private UserEmailFilter userEmailFilter;
+    @Mock
+    private MissingUserCache missingUserCache;
+    @Spy
+    private SingleFlight<Long, User> userLoads = new SingleFlight<>("user-cache", new SimpleMeterRegistry());
+    @Spy
+    private SingleFlight<UserRangeCache.RangeKey, Slice<User>> rangeLoads =
+            new SingleFlight<>("user-range-cache", new SimpleMeterRegistry());
+    @Spy
+    private TransactionOperations writeTransaction = TransactionOperations.withoutTransaction();
+    @Spy
+    private TransactionOperations cacheLoadTransaction = TransactionOperations.withoutTransaction();
     @InjectMocks
     private UserServiceImpl userService;
     private User userValid;
@@ -51,6 +90,8 @@ class UserServiceTest {
         this.userUpdate = new User(1L, "example@gmail.com", "updateFN",
                 LocalDate.of(1991, 1, 13), "updateLN", address, phone);
 
+        when(userEmailFilter.mightContain(anyString())).thenReturn(true);
+
     }
 
     @Test
@@ -90,6 +131,105 @@ class UserServiceTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void testCreateUser_ByEmailUnknownToFilter_SkipsEmailQuery() {
+
+        when(userEmailFilter.mightContain(userValid.getEmail())).thenReturn(false);
+        when(userRepository.save(userValid)).thenReturn(userValid);
+
+        userService.createUser(userValid);
+
+        verify(userRepository, never()).existsUserByEmail(any());
+        verify(userRepository, times(1)).save(userValid);
+        verify(userEmailFilter, times(1)).put(userValid.getEmail());
+    }
+
+    @Test
+    void testCreateUsers_MixedRows_ReturnResultPerRow() {
+
+        User duplicateInChunk = new User(null, "example@gmail.com", "Grisha",
+                LocalDate.of(1996, 5, 16), "Privet", null, null);
+        User existingEmail = new User(null, "busy@gmail.com", "Grisha",
+                LocalDate.of(1996, 5, 16), "Privet", null, null);
+        List<User> users = List.of(userValid, userInvalid, duplicateInChunk, existingEmail);
+        ReflectionTestUtils.setField(userService, "minAgeUser", 18);
+        when(userRepository.findExistingEmails(anyList())).thenReturn(Set.of("busy@gmail.com"));
+
+        var results = userService.createUsers(users);
+
+        assertEquals(4, results.size());
+        assertEquals(userValid.getId(), results.get(0).id());
+        assertNull(results.get(0).error());
+        assertEquals(ErrorTitle.WRONG_AGE.getError(), results.get(1).error());
+        assertEquals(ErrorTitle.USER_EMAIL_EXIST.getError(), results.get(2).error());
+        assertEquals(ErrorTitle.USER_EMAIL_EXIST.getError(), results.get(3).error());
+        assertEquals(3, results.get(3).index());
+        verify(userRepository, times(1)).findExistingEmails(anyList());
+        verify(userRepository, times(1)).insertAllInBatches(List.of(userValid));
+        verify(userRepository, never()).existsUserByEmail(any());
+    }
+
+    @Test
+    void testCreateUsers_ByEmailUnknownToFilter_StillChecksEmailInDatabase() {
+
+        User existingEmail = new User(null, "busy@gmail.com", "Grisha",
+                LocalDate.of(1996, 5, 16), "Privet", null, null);
+        ReflectionTestUtils.setField(userService, "minAgeUser", 18);
+        when(userEmailFilter.mightContain(anyString())).thenReturn(false);
+        when(userRepository.findExistingEmails(List.of(userValid.getEmail(), "busy@gmail.com")))
+                .thenReturn(Set.of("busy@gmail.com"));
+
+        var results = userService.createUsers(List.of(userValid, existingEmail));
+
+        assertNull(results.get(0).error());
+        assertEquals(ErrorTitle.USER_EMAIL_EXIST.getError(), results.get(1).error());
+        verify(userRepository, times(1)).insertAllInBatches(List.of(userValid));
+    }
+
+    @Test
+    void testCreateUsers_ByEmailTakenConcurrently_RetriesRowByRowAndReportsRow() {
+
+        User takenEmail = new User(null, "taken@gmail.com", "Grisha",
+                LocalDate.of(1996, 5, 16), "Privet", null, null);
+        ReflectionTestUtils.setField(userService, "minAgeUser", 18);
+        DataIntegrityViolationException taken = new DataIntegrityViolationException("could not execute batch"
+                , new ConstraintViolationException("duplicate key", new SQLException("23505"), "users_email_key"));
+        doThrow(taken).doNothing().doThrow(taken).when(userRepository).insertAllInBatches(anyList());
+
+        var results = userService.createUsers(List.of(userValid, takenEmail));
+
+        assertNull(results.get(0).error());
+        assertEquals(ErrorTitle.USER_EMAIL_EXIST.getError(), results.get(1).error());
+        assertEquals(1, results.get(1).index());
+        assertNull(userValid.getId());
+        verify(userRepository, times(3)).insertAllInBatches(anyList());
+        verify(userEmailFilter, times(1)).put(userValid.getEmail());
+        verify(userEmailFilter, never()).put(takenEmail.getEmail());
+    }
+
+    @Test
+    void testCreateUsers_ByOtherIntegrityViolation_Throws() {
+
+        ReflectionTestUtils.setField(userService, "minAgeUser", 18);
+        doThrow(new DataIntegrityViolationException("value too long")).when(userRepository).insertAllInBatches(anyList());
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUsers(List.of(userValid)));
+        verify(userRepository, times(1)).insertAllInBatches(anyList());
+    }
+
+    @Test
+    void testCreateUsers_NoValidRow_SkipsInsertAndEvictions() {
+
+        ReflectionTestUtils.setField(userService, "minAgeUser", 18);
+
+        var results = userService.createUsers(List.of(userInvalid));
+
+        assertEquals(ErrorTitle.WRONG_AGE.getError(), results.get(0).error());
+        verify(userRepository, never()).insertAllInBatches(anyList());
+        verify(userRangeCache, never()).evictAll();
+        verify(missingUserCache, never()).evictAll();
+    }
+
     @Test
     void testCreateUser_ByWrongBirthDate_ReturnUserWrongDateException() {
 
@@ -143,6 +283,17 @@ class UserServiceTest {
         verify(userRepository, times(1)).findById(id);
     }
 
+    @Test
+    void testGetUsersByIds_ReturnUsersInRequestOrderWithNullForMissing() {
+
+        when(userCache.getUsers(List.of(5L, 1L, 5L))).thenReturn(Map.of(1L, userValid));
+
+        List<User> users = userService.getUsersByIds(List.of(5L, 1L, 5L));
+
+        assertEquals(Arrays.asList(null, userValid, null), users);
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     void testUpdateUserNames_ReturnUpdateUser() {
 
@@ -155,7 +306,7 @@ class UserServiceTest {
         when(userRepository.save(any(User.class))).thenReturn(userUpdate);
 
 
-        User result = userService.updateUserNames(id, firstName, lastName);
+        User result = userService.updateUserNames(id, firstName, lastName, null);
 
         assertEquals(userUpdate, result);
         assertEquals(firstName, result.getFirstName());
@@ -176,7 +327,7 @@ class UserServiceTest {
         when(userRepository.findById(id)).thenReturn(Optional.ofNullable(userValid));
         when(userRepository.save(any(User.class))).thenReturn(updatedUserFields);
 
-        User result = userService.updateUser(id, updatedUserFields);
+        User result = userService.updateUser(id, updatedUserFields, null);
 
         assertNotNull(result);
         assertEquals(id, result.getId());
@@ -187,6 +338,29 @@ class UserServiceTest {
 
     }
 
+    @Test
+    void testUpdateUser_ByStaleVersion_ReturnUserVersionMismatchException() {
+
+        userValid.setVersion(3L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(userValid));
+
+        assertThrows(UserVersionMismatchException.class, () -> userService.updateUser(1L, userUpdate, Set.of(2L)));
+
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void testUpdateUserNames_ByConcurrentUpdateWithExpectedVersion_ReturnUserVersionMismatchException() {
+
+        userValid.setVersion(3L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(userValid));
+        when(userRepository.save(any(User.class))).thenReturn(userValid);
+        doThrow(new ObjectOptimisticLockingFailureException(User.class, 1L)).when(userRepository).flush();
+
+        assertThrows(UserVersionMismatchException.class
+                , () -> userService.updateUserNames(1L, "updateFN", "updateLN", Set.of(3L)));
+    }
+
     @Test
     void testGetUsersByBirthDateRange_WrongDate_ReturnUserWrongDateException() {
 
@@ -219,4 +393,51 @@ class UserServiceTest {
         verify(userRepository, times(1)).findUsersByBirthDateBetween(from, to, pageable);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetUserSliceByBirthDateRange_ValidDate_SkipsCountQuery() {
+
+        Pageable pageable = PageRequest.of(0, 10);
+        LocalDate from = LocalDate.of(1900, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        Slice<User> slice = new SliceImpl<>(Collections.singletonList(userValid), pageable, false);
+        when(userRepository.findUserSliceByBirthDateBetween(from, to, pageable)).thenReturn(slice);
+
+        Slice<User> result = userService.getUserSliceByBirthDateRange(from, to, pageable);
+
+        assertEquals(slice, result);
+        verify(userRangeCache, times(1)).putSlice(from, to, pageable, slice);
+        verify(userRepository, never()).findUsersByBirthDateBetween(any(), any(), any());
+    }
+
+    @Test
+    void testScrollUsersByBirthDateRange_MoreRows_ReturnSliceWithNext() {
+
+        LocalDate from = LocalDate.of(1900, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        UserCursor cursor = new UserCursor(LocalDate.of(1950, 1, 1), 10L);
+        when(userRepository.findUsersByBirthDateRangeAfter(from, to, cursor.birthDate(), cursor.id()
+                , PageRequest.ofSize(2))).thenReturn(List.of(userValid, userUpdate));
+
+        Slice<User> result = userService.getUsersByBirthDateRangeAfter(from, to, cursor, 1);
+
+        assertTrue(result.hasNext());
+        assertEquals(1, result.getNumberOfElements());
+        assertEquals(userValid, result.getContent().get(0));
+        verify(userRepository, never()).findUsersByBirthDateBetween(any(), any(), any());
+    }
+
+    @Test
+    void testScrollUsersByBirthDateRange_NoCursor_StartsFromBeginning() {
+
+        LocalDate from = LocalDate.of(1900, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        when(userRepository.findFirstUsersByBirthDateRange(from, to, PageRequest.ofSize(11)))
+                .thenReturn(List.of(userValid));
+
+        Slice<User> result = userService.getUsersByBirthDateRangeAfter(from, to, null, 10);
+
+        assertFalse(result.hasNext());
+        assertEquals(1, result.getNumberOfElements());
+    }
+}
@@ -0,0 +1,37 @@
+-- Query plans and latency of the birth date range search before and after V2__add_birth_date_index.sql.
+-- Works on a throwaway schema, so it can be run against any database:
+--   psql -h localhost -U postgres -d userdb -f src/test/resources/benchmark/birth-date-range-index.sql
+\timing on
+
+DROP SCHEMA IF EXISTS benchmark CASCADE;
+CREATE SCHEMA benchmark;
+SET search_path = benchmark;
+
+CREATE TABLE users (LIKE public.users INCLUDING DEFAULTS);
+ALTER TABLE users ADD PRIMARY KEY (id);
+
+INSERT INTO users (id, email, first_name, last_name, birth_date, country, city, street, street_number, apartment, zip, phone_number)
+SELECT n, 'user' || n || '@example.com', 'First' || n % 1000, 'Last' || n % 1000,
+       DATE '1940-01-01' + (random() * 25000)::int,
+       'Country', 'City', 'Street', n % 100, n % 50, '12345', '123-456-789'
+FROM generate_series(1, 3000000) AS n;
+ANALYZE users;
+
+-- before: sequential scan and sort of the whole table
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE birth_date BETWEEN '1990-01-01' AND '1990-12-31'
+ORDER BY birth_date, id OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY;
+SELECT count(*) FROM users WHERE birth_date BETWEEN '1990-01-01' AND '1990-12-31';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE birth_date BETWEEN '1990-01-01' AND '2000-12-31'
+  AND (birth_date, id) > ('1995-06-01', 1500000) ORDER BY birth_date, id FETCH FIRST 101 ROWS ONLY;
+
+CREATE INDEX idx_users_birth_date_id ON users (birth_date, id);
+ANALYZE users;
+
+-- after: index range scan, no sort, stops after the requested rows
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE birth_date BETWEEN '1990-01-01' AND '1990-12-31'
+ORDER BY birth_date, id OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY;
+SELECT count(*) FROM users WHERE birth_date BETWEEN '1990-01-01' AND '1990-12-31';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE birth_date BETWEEN '1990-01-01' AND '2000-12-31'
+  AND (birth_date, id) > ('1995-06-01', 1500000) ORDER BY birth_date, id FETCH FIRST 101 ROWS ONLY;
+
+DROP SCHEMA benchmark CASCADE;